@@ -1,19 +1,87 @@
+import generator.output.BinaryTac;
+import generator.output.Format;
+import generator.output.TacImage;
+import generator.opt.Optimizer;
 import lexical.LexicalAnalysis;
 import lexical.LexicalException;
 import lexical.TokenType;
 import syntatic.SyntaticAnalysis;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
 public class Main {
     public static void main(String[] args) throws LexicalException {
-        System.out.println(args[0]);
-        if (args.length != 1) {
+        String filename = null;
+        boolean pipelined = false;
+        boolean parallel = false;
+        boolean stream = false;
+        boolean load = false;
+        String tacFile = null;
+        Format format = Format.TEXT;
+        String passes = null;
+        boolean shortCircuit = false;
+        for (String arg : args) {
+            if ("--pipelined".equals(arg))
+                pipelined = true;
+            else if ("--parallel".equals(arg))
+                parallel = true;
+            else if ("--stream".equals(arg))
+                stream = true;
+            else if ("--load".equals(arg))
+                load = true;
+            else if (arg.startsWith("--format=")) {
+                try {
+                    format = Format.parse(arg.substring("--format=".length()));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Internal error: " + e.getMessage());
+                    return;
+                }
+            }
+            else if ("--short-circuit".equals(arg))
+                shortCircuit = true;
+            else if (arg.startsWith("--opt="))
+                passes = arg.substring("--opt=".length());
+            else if (arg.startsWith("--tac="))
+                tacFile = arg.substring("--tac=".length());
+            else
+                filename = arg;
+        }
+        if (filename == null) {
             System.out.println("Not enough arguments!");
             return;
         }
+        // O streaming descarta o codigo ja escrito, que as otimizacoes, o .tac e o JSON precisam inteiro
+        if (stream && (passes != null || tacFile != null || format != Format.TEXT)) {
+            System.err.println("Internal error: --stream não pode ser combinado com --opt, --tac ou --format=json");
+            return;
+        }
+        if (format == Format.TEXT)
+            System.out.println(filename);
+
+        if (load) {
+            try {
+                System.out.println(TacImage.open(filename));
+            } catch (Exception e) {
+                System.err.println("Internal error: " + e.getMessage());
+            }
+            return;
+        }
 
-        try (LexicalAnalysis l = new LexicalAnalysis(args[0])) {
-            SyntaticAnalysis s = new SyntaticAnalysis(l);
+        try (LexicalAnalysis l = new LexicalAnalysis(filename)) {
+            if (parallel)
+                l.tokenizeParallel();
+            else if (pipelined)
+                l.startPipeline();
+            Writer out = stream ? new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16) : null;
+            SyntaticAnalysis s = new SyntaticAnalysis(l, out, format);
+            s.setJumpingCode(shortCircuit);
+            if (passes != null)
+                s.setOptimizer(Optimizer.parse(passes, System.err));
             s.start();
+            if (tacFile != null)
+                BinaryTac.write(s.code(), tacFile);
         } catch (Exception e) {
             System.err.println("Internal error: " + e.getMessage());
         }
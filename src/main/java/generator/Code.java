@@ -1,68 +1,512 @@
 package generator;
 
-import generator.codeline.IncompleteLine;
-import generator.codeline.Line;
-import generator.codeline.LineModel;
+import generator.addresses.Address;
+import generator.addresses.ConstAddress;
+import generator.addresses.Expression;
+import generator.addresses.NameAddress;
+import generator.addresses.TempAddress;
+import generator.ir.Opcode;
+import generator.ir.Operand;
+import generator.ir.Quads;
+import generator.output.TextListing;
 
-import java.util.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
-public class Code {
-    Map<Integer, LineModel> code;
-    int nextAddr;
+// Codigo de tres enderecos em quadruplas (op, result, arg1, arg2) guardadas em vetores paralelos.
+// A instrucao do endereco addr fica no indice addr - startAddr.
+public class Code implements Quads {
+    private static final int FLUSH_BATCH = 4096;
+    private static final Type[] TYPES = Type.values();
+
+    final CurrentSymbolTable symbols;
+    final List<TempAddress> temps;
+    final List<ConstAddress> constants;
+    private final Map<String, Integer> constantIndex;
+
+    byte[] ops;
+    int[] results;
+    int[] args1;
+    int[] args2;
+    // Destino dos saltos; enquanto pendente guarda ~proximo da lista de backpatch
+    int[] targets;
+    int size;
+
+    // Modo streaming: as instrucoes abaixo da marca d'agua (o salto pendente mais antigo) ja sao
+    // definitivas, sao escritas em stream e descartadas. Os vetores guardam so [base, size).
+    private Writer stream;
+    int base;
+    int flushed;
+    private int[] pendingJumps;
+    private int pendingHead;
+    private int pendingTail;
+    // No streaming os temporarios nao ficam em temps: so o tipo dos que ainda podem ser lidos, a partir
+    // de tempBase, e o contador. O nome sai do proprio id.
+    byte[] tempTypes;
+    int tempBase;
+    private int tempCount;
+
+    int startAddr;
     int offset;
+
     public Code(){
-        this.code = new HashMap<>();
-        this.nextAddr = 100;
-        this.offset = 0;
+        this(new CurrentSymbolTable());
+    }
+
+    public Code(CurrentSymbolTable symbols){
+        this(symbols, 100);
     }
 
-    public Code(int startAddr){
-        this.code = new HashMap<>();
-        this.nextAddr = startAddr;
+    public Code(CurrentSymbolTable symbols, int startAddr){
+        this.symbols = symbols;
+        this.temps = new ArrayList<>();
+        this.constants = new ArrayList<>();
+        this.constantIndex = new HashMap<>();
+        this.ops = new byte[256];
+        this.results = new int[256];
+        this.args1 = new int[256];
+        this.args2 = new int[256];
+        this.targets = new int[256];
+        this.startAddr = startAddr;
         this.offset = 0;
     }
 
-    public void emit(String command){
-        this.code.put(this.nextAddr,new Line(command));
-        this.nextAddr++;
+    public TempAddress newTemp(Type type){
+        if(tempTypes == null){
+            TempAddress temp = new TempAddress(type, temps.size());
+            temps.add(temp);
+            return temp;
+        }
+        if(tempCount - tempBase == tempTypes.length)
+            discardTemps();
+        tempTypes[tempCount - tempBase] = (byte) type.ordinal();
+        return new TempAddress(type, tempCount++);
+    }
+
+    public void emit(Opcode op, Address result, Address arg1, Address arg2){
+        append(op, operandOf(result), operandOf(arg1), operandOf(arg2));
+    }
+
+    public void emit(Opcode op, Address result, Address arg1){
+        append(op, operandOf(result), operandOf(arg1), Operand.NONE);
+    }
+
+    public void emitDecl(NameAddress name){
+        append(Opcode.DECL, operandOf(name), Operand.NONE, Operand.NONE);
     }
 
-    public void emit(String command, String missing) throws Exception{
-        System.out.println("Emmiting: "+command);
-        if(!command.contains(missing)){
-            throw new Exception("Substring \'"+missing+"\' não presente na linha de código \'"+command+"\'que requer \'backpatch\' quando emitindo-a!");
+    public void emitScan(NameAddress name){
+        append(Opcode.SCAN, operandOf(name), Operand.NONE, Operand.NONE);
+    }
+
+    public void emitOut(Address value){
+        append(Opcode.OUT, Operand.NONE, operandOf(value), Operand.NONE);
+    }
+
+    // Emite "if cond goto L" e devolve a lista de backpatch que contem so esta instrucao
+    public int emitIf(Address condition){
+        append(Opcode.IF, Operand.NONE, operandOf(condition), Operand.NONE);
+        return makelist(nextInst() - 1);
+    }
+
+    // Emite "goto L" e devolve a lista de backpatch que contem so esta instrucao
+    public int emitGoto(){
+        append(Opcode.GOTO, Operand.NONE, Operand.NONE, Operand.NONE);
+        return makelist(nextInst() - 1);
+    }
+
+    private void append(Opcode op, int result, int arg1, int arg2){
+        if(stream != null && size - flushed >= FLUSH_BATCH)
+            flush();
+        if(size - base == ops.length){
+            if(flushed - base > ops.length / 2)
+                discardFlushed();
+            else
+                grow(ops.length * 2);
         }
-        else{
-            this.code.put(this.nextAddr,new IncompleteLine(command,missing));
-            this.nextAddr++;
+        int p = size - base;
+        ops[p] = (byte) op.ordinal();
+        results[p] = result;
+        args1[p] = arg1;
+        args2[p] = arg2;
+        targets[p] = -1;
+        if(stream != null && op.isJump())
+            pushPending(size);
+        size++;
+    }
+
+    private void grow(int capacity){
+        ops = Arrays.copyOf(ops, capacity);
+        results = Arrays.copyOf(results, capacity);
+        args1 = Arrays.copyOf(args1, capacity);
+        args2 = Arrays.copyOf(args2, capacity);
+        targets = Arrays.copyOf(targets, capacity);
+    }
+
+    public int operandOf(Address addr){
+        if(addr instanceof NameAddress){
+            int index = symbols.indexOf(((NameAddress) addr).symbol());
+            return index < 0 ? Operand.NONE : Operand.of(Operand.NAME, index);
         }
+        if(addr instanceof TempAddress)
+            return Operand.of(Operand.TEMP, ((TempAddress) addr).getCopy());
+        if(addr instanceof ConstAddress)
+            return Operand.of(Operand.CONST, constant((ConstAddress) addr));
+        return Operand.NONE;
+    }
+
+    // Constantes iguais compartilham a mesma entrada da tabela
+    private int constant(ConstAddress addr){
+        String key = addr.type() + ":" + addr.value();
+        Integer index = constantIndex.get(key);
+        if(index == null){
+            index = constants.size();
+            constants.add(addr);
+            constantIndex.put(key, index);
+        }
+        return index;
+    }
+
+    // Uma lista de backpatch e representada pelo endereco do seu ultimo salto. Os saltos pendentes
+    // formam uma cadeia circular pelos proprios campos de destino: o ultimo aponta para o primeiro.
+    public int makelist(int addr){
+        targets[pending(addr) - base] = ~addr;
+        return addr;
+    }
+
+    public int merge(int list1, int list2){
+        if(list1 == Expression.EMPTY)
+            return list2;
+        if(list2 == Expression.EMPTY)
+            return list1;
+        int last1 = pending(list1) - base;
+        int last2 = pending(list2) - base;
+        int first1 = targets[last1];
+        targets[last1] = targets[last2];
+        targets[last2] = first1;
+        return list2;
     }
 
-    public void backpatch(List<Integer> addrs, int target) throws Exception{
-        for (Integer addr:addrs) {
-            if(!this.code.containsKey(addr))
-                throw new Exception("O endereço " + addr.toString() + " não foi referenciado pelo código gerado!");
-            LineModel codeline = this.code.get(addr);
-            if(codeline instanceof IncompleteLine)
-                codeline = ((IncompleteLine) codeline).backpatch(target);
-            this.code.replace(addr,codeline);
+    public void backpatch(int list, int target){
+        if(list == Expression.EMPTY)
+            return;
+        int addr = ~targets[pending(list) - base];
+        while (true) {
+            int index = pending(addr) - base;
+            int next = ~targets[index];
+            targets[index] = target;
+            if(addr == list)
+                break;
+            addr = next;
         }
     }
 
+    private int pending(int addr){
+        int index = addr - this.startAddr;
+        if(index < base || index >= size)
+            throw new IllegalArgumentException("O endereço " + addr + " não foi referenciado pelo código gerado!");
+        if(!op(index).isJump() || isResolved(index))
+            throw new IllegalArgumentException("O endereço " + addr + " não é um salto pendente!");
+        return index;
+    }
+
     public int nextInst(){
-        return nextAddr;
+        return startAddr + size;
+    }
+
+    public int startAddr(){
+        return startAddr;
     }
 
     @Override
-    public String toString(){
-        StringBuilder codelines = new StringBuilder();
-        Set<Integer> addrs = new TreeSet<>(this.code.keySet());
-        for (Integer addr:addrs) {
-            codelines.append(addr.toString())
-                    .append("\t")
-                    .append(this.code.get(addr).showLine())
-                    .append("\n");
+    public int size(){
+        return size;
+    }
+
+    // Primeiro indice ainda guardado; no modo streaming as instrucoes anteriores ja foram descartadas
+    @Override
+    public int firstRetained(){
+        return base;
+    }
+
+    @Override
+    public int address(int index){
+        return startAddr + index;
+    }
+
+    @Override
+    public Opcode op(int index){
+        return Opcode.of(ops[index - base]);
+    }
+
+    @Override
+    public int result(int index){
+        return results[index - base];
+    }
+
+    @Override
+    public int arg1(int index){
+        return args1[index - base];
+    }
+
+    @Override
+    public int arg2(int index){
+        return args2[index - base];
+    }
+
+    @Override
+    public int target(int index){
+        return targets[index - base];
+    }
+
+    @Override
+    public boolean isResolved(int index){
+        return targets[index - base] >= 0;
+    }
+
+    // Indice da instrucao do endereco addr
+    public int indexOf(int addr){
+        return addr - startAddr;
+    }
+
+    // Reescrita usada pelas otimizacoes; o destino de saltos e preservado
+    public void set(int index, Opcode op, int result, int arg1, int arg2){
+        int p = index - base;
+        ops[p] = (byte) op.ordinal();
+        results[p] = result;
+        args1[p] = arg1;
+        args2[p] = arg2;
+    }
+
+    public void setTarget(int index, int target){
+        targets[index - base] = target;
+    }
+
+    // Remove as instrucoes marcadas e renumera os enderecos. Um salto para uma instrucao removida
+    // passa a apontar para a proxima que ficou. Devolve quantas foram removidas.
+    public int compact(boolean[] removed){
+        if(base > 0)
+            throw new IllegalStateException("Parte do código já foi descartada pelo streaming");
+        int[] map = new int[size + 1];
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            map[i] = kept;
+            if(!removed[i])
+                kept++;
+        }
+        map[size] = kept;
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if(removed[i])
+                continue;
+            ops[n] = ops[i];
+            results[n] = results[i];
+            args1[n] = args1[i];
+            args2[n] = args2[i];
+            int target = targets[i];
+            targets[n] = Opcode.of(ops[i]).isJump() && target >= 0 ? startAddr + map[target - startAddr] : target;
+            n++;
+        }
+        int count = size - kept;
+        size = kept;
+        flushed = Math.min(flushed, size);
+        return count;
+    }
+
+    // Reordena as instrucoes de [from, to): a posicao from + k recebe a instrucao order[k]. Saltos desse
+    // trecho que apontam para dentro dele acompanham a instrucao de destino.
+    public void permute(int from, int to, int[] order){
+        int n = to - from;
+        int[] position = new int[n];
+        for (int k = 0; k < n; k++)
+            position[order[k] - from] = from + k;
+        byte[] o = Arrays.copyOfRange(ops, from - base, to - base);
+        int[] r = Arrays.copyOfRange(results, from - base, to - base);
+        int[] a1 = Arrays.copyOfRange(args1, from - base, to - base);
+        int[] a2 = Arrays.copyOfRange(args2, from - base, to - base);
+        int[] t = Arrays.copyOfRange(targets, from - base, to - base);
+        for (int k = 0; k < n; k++) {
+            int src = order[k] - from;
+            int p = from + k - base;
+            ops[p] = o[src];
+            results[p] = r[src];
+            args1[p] = a1[src];
+            args2[p] = a2[src];
+            int target = t[src];
+            if(Opcode.of(o[src]).isJump() && target >= 0 && indexOf(target) >= from && indexOf(target) < to)
+                target = address(position[indexOf(target) - from]);
+            targets[p] = target;
+        }
+    }
+
+    // Troca a tabela de temporarios: o temporario i passa a ser temps.get(map[i])
+    public void remapTemps(int[] map, List<TempAddress> temps){
+        if(base > 0)
+            throw new IllegalStateException("Parte do código já foi descartada pelo streaming");
+        for (int p = 0; p < size; p++) {
+            results[p] = remapTemp(results[p], map);
+            args1[p] = remapTemp(args1[p], map);
+            args2[p] = remapTemp(args2[p], map);
         }
-        return codelines.toString();
+        this.temps.clear();
+        this.temps.addAll(temps);
+    }
+
+    private static int remapTemp(int operand, int[] map){
+        return Operand.kind(operand) == Operand.TEMP ? Operand.of(Operand.TEMP, map[Operand.id(operand)]) : operand;
+    }
+
+    public CurrentSymbolTable symbols(){
+        return symbols;
+    }
+
+    public List<TempAddress> temps(){
+        if(tempTypes != null)
+            throw new IllegalStateException("Os temporários não ficam guardados no modo streaming");
+        return temps;
+    }
+
+    public List<ConstAddress> constants(){
+        return constants;
+    }
+
+    public Address addressOf(int operand){
+        int id = Operand.id(operand);
+        switch (Operand.kind(operand)) {
+            case Operand.NAME:
+                return symbols.getTable().get(id);
+            case Operand.TEMP:
+                return tempTypes == null ? temps.get(id) : new TempAddress(tempType(id), id);
+            case Operand.CONST:
+                return constants.get(id);
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public Type typeOf(int operand){
+        Address addr = addressOf(operand);
+        return addr == null ? Type.VOID : addr.type();
+    }
+
+    @Override
+    public String nameOf(int operand){
+        if(Operand.kind(operand) == Operand.TEMP)
+            return TempAddress.name(Operand.id(operand));
+        Address addr = addressOf(operand);
+        return addr == null ? "none" : addr.value();
+    }
+
+    // Passa a escrever as instrucoes definitivas em out a medida que sao geradas
+    public void streamTo(Writer out){
+        this.stream = out;
+        this.pendingJumps = new int[64];
+        this.tempTypes = new byte[Math.max(256, temps.size())];
+        for (TempAddress temp : temps)
+            tempTypes[tempCount++] = (byte) temp.type().ordinal();
+        temps.clear();
+        for (int i = flushed; i < size; i++) {
+            if(op(i).isJump() && !isResolved(i))
+                pushPending(i);
+        }
+    }
+
+    // Indice da instrucao mais antiga que ainda tem um salto pendente (ou size, se nao houver)
+    public int watermark(){
+        while (pendingHead < pendingTail && isResolved(pendingJumps[pendingHead]))
+            pendingHead++;
+        return pendingHead < pendingTail ? pendingJumps[pendingHead] : size;
+    }
+
+    // Enquanto um salto pendente segura a marca d'agua nao ha o que escrever, nem stream para esvaziar
+    public void flush(){
+        if(stream == null)
+            return;
+        int mark = watermark();
+        if(mark == flushed)
+            return;
+        TextListing.write(this, flushed, mark, stream);
+        flushed = mark;
+        flushStream();
+    }
+
+    // Escreve o que restou, inclusive saltos que ficaram sem destino
+    public void finish(){
+        if(stream == null)
+            return;
+        TextListing.write(this, flushed, size, stream);
+        flushed = size;
+        flushStream();
+    }
+
+    private void flushStream(){
+        try {
+            stream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void pushPending(int index){
+        if(pendingTail == pendingJumps.length){
+            int live = pendingTail - pendingHead;
+            if(live < pendingJumps.length / 2)
+                System.arraycopy(pendingJumps, pendingHead, pendingJumps, 0, live);
+            else
+                pendingJumps = Arrays.copyOfRange(pendingJumps, pendingHead, pendingHead + pendingJumps.length * 2);
+            pendingHead = 0;
+            pendingTail = live;
+        }
+        pendingJumps[pendingTail++] = index;
+    }
+
+    private void discardFlushed(){
+        int n = flushed - base;
+        int live = size - flushed;
+        System.arraycopy(ops, n, ops, 0, live);
+        System.arraycopy(results, n, results, 0, live);
+        System.arraycopy(args1, n, args1, 0, live);
+        System.arraycopy(args2, n, args2, 0, live);
+        System.arraycopy(targets, n, targets, 0, live);
+        base = flushed;
+    }
+
+    private Type tempType(int id){
+        if(id < tempBase)
+            throw new IllegalStateException("Parte do código já foi descartada pelo streaming");
+        return TYPES[tempTypes[id - tempBase]];
+    }
+
+    // Os tipos abaixo do menor temporario citado pelas instrucoes guardadas nao sao mais consultados.
+    // O parser escreve cada temporario logo depois de cria-lo, entao nenhum novo fica de fora.
+    private void discardTemps(){
+        int first = tempCount;
+        for (int p = 0; p < size - base; p++) {
+            first = Math.min(first, tempId(results[p]));
+            first = Math.min(first, tempId(args1[p]));
+            first = Math.min(first, tempId(args2[p]));
+        }
+        first = Math.max(first, tempBase);
+        int live = tempCount - first;
+        byte[] types = live > tempTypes.length / 2 ? new byte[tempTypes.length * 2] : tempTypes;
+        System.arraycopy(tempTypes, first - tempBase, types, 0, live);
+        tempTypes = types;
+        tempBase = first;
+    }
+
+    private static int tempId(int operand){
+        return Operand.kind(operand) == Operand.TEMP ? Operand.id(operand) : Integer.MAX_VALUE;
+    }
+
+    @Override
+    public String toString(){
+        return TextListing.render(this);
     }
 }
@@ -1,41 +1,104 @@
 package generator;
 
 import generator.addresses.NameAddress;
+import lexical.Symbol;
 import lombok.Getter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-@Getter
 public class CurrentSymbolTable {
+    // Todas as declaracoes, na ordem em que foram feitas, inclusive as de escopos ja fechados
+    @Getter
     protected List<NameAddress> table;
+    @Getter
     private int offset = 0;
+
+    // Indexado pelo id do Symbol: posicao em table da declaracao visivel, ou -1
+    private int[] visible;
+    // Indexados pela posicao em table
+    private int[] shadowed;
+    private int[] offsets;
+    private int[] scopes;
+    // Tamanho de table na abertura de cada escopo
+    private int[] marks;
+    private int depth;
+
     public CurrentSymbolTable(){
         this.table = new ArrayList<>();
+        this.visible = new int[64];
+        Arrays.fill(this.visible, -1);
+        this.shadowed = new int[64];
+        this.offsets = new int[64];
+        this.scopes = new int[64];
+        this.marks = new int[8];
+        this.depth = 0;
     }
 
     public boolean put(NameAddress addr){
-        if(this.contains(addr.toString()))
+        int id = addr.symbol().id();
+        // Simbolos criados fora de um SymbolPool (id -1) nao tem posicao na tabela
+        if (id < 0)
+            throw new IllegalArgumentException("O símbolo " + addr.value() + " não pertence a um SymbolPool");
+        if (id >= visible.length) {
+            int old = visible.length;
+            visible = Arrays.copyOf(visible, Math.max(id + 1, old * 2));
+            Arrays.fill(visible, old, visible.length, -1);
+        }
+        int previous = visible[id];
+        if (previous >= 0 && scopes[previous] == depth)
             return false;
-        else
-            this.table.add(addr);
+
+        int index = table.size();
+        if (index == shadowed.length) {
+            shadowed = Arrays.copyOf(shadowed, index * 2);
+            offsets = Arrays.copyOf(offsets, index * 2);
+            scopes = Arrays.copyOf(scopes, index * 2);
+        }
+        table.add(addr);
+        shadowed[index] = previous;
+        offsets[index] = offset;
+        scopes[index] = depth;
+        visible[id] = index;
         offset += addr.width();
         return true;
     }
-    public NameAddress get(String id) {
-        if(contains(id))
-            for (NameAddress addr:table) {
-                if(addr.value().equals(id))
-                    return addr;
-            }
-        return null;
-    }
-    public boolean contains(String id){
-        for (NameAddress addr:table) {
-            if(addr.value().equals(id)){
-                return true;
-            }
+
+    public NameAddress get(Symbol id) {
+        int index = indexOf(id);
+        return index >= 0 ? table.get(index) : null;
+    }
+
+    public boolean contains(Symbol id){
+        return indexOf(id) >= 0;
+    }
+
+    // Posicao em table da declaracao visivel de id, ou -1
+    public int indexOf(Symbol id) {
+        int i = id.id();
+        return i >= 0 && i < visible.length ? visible[i] : -1;
+    }
+
+    public int offsetOf(int index) {
+        return offsets[index];
+    }
+
+    public void openScope() {
+        if (depth + 1 == marks.length)
+            marks = Arrays.copyOf(marks, marks.length * 2);
+        marks[++depth] = table.size();
+    }
+
+    // As declaracoes do escopo continuam em table e no offset; so deixam de ser visiveis
+    public void closeScope() {
+        if (depth == 0)
+            throw new IllegalStateException("Nenhum escopo aberto");
+        for (int index = table.size() - 1; index >= marks[depth]; index--) {
+            int id = table.get(index).symbol().id();
+            if (visible[id] == index)
+                visible[id] = shadowed[index];
         }
-        return false;
+        depth--;
     }
 }
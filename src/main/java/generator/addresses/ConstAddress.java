@@ -24,6 +24,11 @@ public class ConstAddress extends Address{
         this.value = new StringValue(value);
     }
 
+    // Valor da constante como Integer, Float ou String (sem aspas)
+    public Object literal(){
+        return value instanceof StringValue ? ((StringValue) value).raw() : value.value();
+    }
+
     @Override
     public String value(){
         return value.value().toString();
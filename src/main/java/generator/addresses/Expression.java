@@ -2,15 +2,15 @@ package generator.addresses;
 
 import generator.Type;
 
-import java.util.ArrayList;
-import java.util.List;
-
+// As listas de backpatch sao cadeias dentro de Code (ver Code.makelist); -1 e a lista vazia
 public class Expression {
+    public static final int EMPTY = -1;
+
     private final Address addr;
     private final Type type;
-    private final List<Integer> nextlist;
-    private final List<Integer> truelist;
-    private final List<Integer> falselist;
+    private int nextlist;
+    private int truelist;
+    private int falselist;
 
     public Expression(Address addr){
         this.addr = addr;
@@ -18,9 +18,9 @@ public class Expression {
             this.type = Type.VOID;
         else
             this.type = addr.type();
-        this.nextlist = new ArrayList<>();
-        this.truelist = new ArrayList<>();
-        this.falselist = new ArrayList<>();
+        this.nextlist = EMPTY;
+        this.truelist = EMPTY;
+        this.falselist = EMPTY;
     }
 
     public Expression(boolean hasError){
@@ -29,9 +29,26 @@ public class Expression {
             this.type = Type.ERROR;
         else
             this.type = Type.VOID;
-        this.nextlist = new ArrayList<>();
-        this.truelist = new ArrayList<>();
-        this.falselist = new ArrayList<>();
+        this.nextlist = EMPTY;
+        this.truelist = EMPTY;
+        this.falselist = EMPTY;
+    }
+
+    // Expressao booleana em codigo de desvio: o valor esta so nas listas de saltos, sem endereco
+    public Expression(Type type, int truelist, int falselist){
+        this.addr = null;
+        this.type = type;
+        this.nextlist = EMPTY;
+        this.truelist = truelist;
+        this.falselist = falselist;
+    }
+
+    public boolean isJumping(){
+        return addr == null && (truelist != EMPTY || falselist != EMPTY);
+    }
+
+    public Address address(){
+        return addr;
     }
 
     public String addr(){
@@ -45,45 +62,27 @@ public class Expression {
         return this.type;
     }
 
-    public List<Integer> getNextlist() {
+    public int getNextlist() {
         return nextlist;
     }
 
-    public List<Integer> getTruelist() {
+    public int getTruelist() {
         return truelist;
     }
 
-    public List<Integer> getFalselist() {
+    public int getFalselist() {
         return falselist;
     }
 
-    public void addToNextList(List<Integer> list){
-        nextlist.addAll(list);
-    }
-
-    public void addToTrueList(List<Integer> list){
-        truelist.addAll(list);
-    }
-
-    public void addToFalseList(List<Integer> list){
-        falselist.addAll(list);
-    }
-
-    public void addToNextList(int[] list){
-        for (Integer inst:list) {
-            nextlist.add(inst);
-        }
+    public void setNextlist(int list) {
+        this.nextlist = list;
     }
 
-    public void addToTrueList(int[] list){
-        for (Integer inst:list) {
-            truelist.add(inst);
-        }
+    public void setTruelist(int list) {
+        this.truelist = list;
     }
 
-    public void addToFalseList(int[] list){
-        for (Integer inst:list) {
-            falselist.add(inst);
-        }
+    public void setFalselist(int list) {
+        this.falselist = list;
     }
 }
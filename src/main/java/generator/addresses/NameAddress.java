@@ -1,12 +1,13 @@
 package generator.addresses;
 
 import generator.Type;
+import lexical.Symbol;
 
 public class NameAddress extends Address{
-    private final String id;
+    private final Symbol id;
     private final int width;
 
-    public NameAddress(String name,Type type){
+    public NameAddress(Symbol name,Type type){
         super(type);
         this.id = name;
         switch (type){
@@ -28,6 +29,10 @@ public class NameAddress extends Address{
 
     @Override
     public String value() {
+        return id.name();
+    }
+
+    public Symbol symbol() {
         return id;
     }
 
@@ -5,17 +5,16 @@ import lombok.Getter;
 
 @Getter
 public class TempAddress extends Address{
-    private static int copies = 0;
     private final String id;
     private final int copy;
     private final int width;
 
 
-    public TempAddress(Type type){
+    // copy e a posicao do temporario na tabela de Code que o criou
+    public TempAddress(Type type, int copy){
         super(type);
         this.id = "t";
-        this.copy = copies;
-        copies++;
+        this.copy = copy;
 
         switch (type){
             case INTEGER:
@@ -35,9 +34,11 @@ public class TempAddress extends Address{
 
     @Override
     public String value() {
-        if(copy>0){
-            return id + copy;
-        }
-        return this.id;
+        return name(copy);
+    }
+
+    // Nome do temporario de posicao copy: t, t1, t2...
+    public static String name(int copy) {
+        return copy > 0 ? "t" + copy : "t";
     }
 }
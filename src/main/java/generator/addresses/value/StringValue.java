@@ -2,9 +2,16 @@ package generator.addresses.value;
 
 public class StringValue extends Value<String>{
     private final String value;
+    private final String raw;
 
     public StringValue(String value){
         this.value = "\""+value+"\"";
+        this.raw = value;
+    }
+
+    // Texto sem as aspas
+    public String raw() {
+        return raw;
     }
 
     @Override
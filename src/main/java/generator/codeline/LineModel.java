@@ -1,6 +0,0 @@
-package generator.codeline;
-
-public abstract class LineModel {
-    private String line;
-    public abstract String showLine();
-}
@@ -0,0 +1,66 @@
+package generator.ir;
+
+public enum Opcode {
+    DECL(""),      // TYPE result
+    COPY("="),     // result = arg1
+
+    ADD("+"),      // result = arg1 + arg2
+    SUB("-"),
+    MUL("*"),
+    DIV("/"),
+    AND("&&"),
+    OR("||"),
+    EQ("=="),
+    NE("<>"),
+    GT(">"),
+    GE(">="),
+    LT("<"),
+    LE("<="),
+
+    NOT("!"),      // result = !arg1
+    NEG("-"),      // result = -arg1
+
+    SCAN("scan"),  // scan result
+    OUT("out"),    // out arg1
+    IF("if"),      // if arg1 goto target
+    GOTO("goto"),  // goto target
+
+    SHL("<<");     // result = arg1 << arg2; so o peephole gera, fica no fim para nao mudar os codigos do binario
+
+    private static final Opcode[] VALUES = values();
+
+    private final String symbol;
+
+    Opcode(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+
+    public boolean isBinary() {
+        return compareTo(ADD) >= 0 && compareTo(LE) <= 0 || this == SHL;
+    }
+
+    public boolean isUnary() {
+        return this == NOT || this == NEG;
+    }
+
+    public boolean isJump() {
+        return this == IF || this == GOTO;
+    }
+
+    public static Opcode of(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    // Operador binario a partir do lexema usado no fonte
+    public static Opcode fromSymbol(String symbol) {
+        for (Opcode op : VALUES) {
+            if (op.isBinary() && op.symbol.equals(symbol))
+                return op;
+        }
+        throw new IllegalArgumentException("Operador desconhecido: " + symbol);
+    }
+}
@@ -0,0 +1,28 @@
+package generator.ir;
+
+// Operandos das quadruplas codificados em um int: o tipo nos 4 bits mais altos e o
+// indice na tabela correspondente (simbolos, temporarios ou constantes) no restante
+public final class Operand {
+    public static final int NONE = 0;
+    public static final int NAME = 1;
+    public static final int TEMP = 2;
+    public static final int CONST = 3;
+
+    private static final int SHIFT = 28;
+    private static final int ID_MASK = (1 << SHIFT) - 1;
+
+    private Operand() {
+    }
+
+    public static int of(int kind, int id) {
+        return kind << SHIFT | id;
+    }
+
+    public static int kind(int operand) {
+        return operand >>> SHIFT;
+    }
+
+    public static int id(int operand) {
+        return operand & ID_MASK;
+    }
+}
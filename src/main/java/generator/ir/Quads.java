@@ -0,0 +1,39 @@
+package generator.ir;
+
+import generator.Type;
+
+// Visao somente leitura de uma sequencia de quadruplas, seja o Code em construcao ou um binario carregado
+public interface Quads {
+    // Operandos lidos por instrucao: arg(index, 0) e arg1, arg(index, 1) e arg2
+    int ARGS = 2;
+
+    int size();
+
+    // Primeiro indice ainda disponivel para leitura
+    default int firstRetained() {
+        return 0;
+    }
+
+    int address(int index);
+
+    Opcode op(int index);
+
+    int result(int index);
+
+    int arg1(int index);
+
+    int arg2(int index);
+
+    // Percorre os operandos lidos sem alocar: for (int k = 0; k < ARGS; k++) ... arg(index, k)
+    default int arg(int index, int k) {
+        return k == 0 ? arg1(index) : arg2(index);
+    }
+
+    int target(int index);
+
+    boolean isResolved(int index);
+
+    Type typeOf(int operand);
+
+    String nameOf(int operand);
+}
@@ -0,0 +1,193 @@
+package generator.opt;
+
+import generator.Code;
+import generator.Type;
+import generator.addresses.ConstAddress;
+import generator.ir.Opcode;
+import generator.ir.Operand;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Dobra expressoes com operandos constantes e propaga constantes dentro de cada bloco basico.
+// Os tipos seguem as regras do parser: int op int da int, com float vira float, string + string
+// concatena e comparacoes dao int 0/1. Temporarios que viram constante somem da listagem e um
+// "if" com condicao constante vira "goto" ou e removido.
+public class ConstantFolding implements Pass {
+    private int eliminated;
+
+    @Override
+    public void run(Code code) {
+        int size = code.size();
+        boolean[] leader = new boolean[size + 1];
+        for (int i = 0; i < size; i++) {
+            if (code.op(i).isJump() && code.isResolved(i))
+                leader[code.indexOf(code.target(i))] = true;
+        }
+
+        Map<Integer, Integer> values = new HashMap<>();
+        boolean[] removed = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            if (leader[i])
+                values.clear();
+
+            Opcode op = code.op(i);
+            int result = code.result(i);
+            int arg1 = valueOf(code.arg1(i), values);
+            int arg2 = valueOf(code.arg2(i), values);
+            switch (op) {
+                case DECL:
+                case SCAN:
+                    values.remove(result);
+                    break;
+                case GOTO:
+                    break;
+                case OUT:
+                    code.set(i, op, result, arg1, arg2);
+                    break;
+                case IF:
+                    if (isConstant(arg1)) {
+                        if (truth(code, arg1))
+                            code.set(i, Opcode.GOTO, Operand.NONE, Operand.NONE, Operand.NONE);
+                        else
+                            removed[i] = true;
+                    } else {
+                        code.set(i, op, result, arg1, arg2);
+                    }
+                    break;
+                default:
+                    int folded = op == Opcode.COPY ? arg1 : fold(code, op, code.typeOf(result), arg1, arg2);
+                    if (isConstant(folded)) {
+                        code.set(i, Opcode.COPY, result, folded, Operand.NONE);
+                        values.put(result, folded);
+                    } else {
+                        code.set(i, op, result, arg1, arg2);
+                        values.remove(result);
+                    }
+                    break;
+            }
+        }
+
+        // Temporarios constantes que ficaram sem uso
+        boolean[] used = new boolean[code.temps().size()];
+        for (int i = 0; i < size; i++) {
+            if (removed[i])
+                continue;
+            markTemp(code.arg1(i), used);
+            markTemp(code.arg2(i), used);
+        }
+        for (int i = 0; i < size; i++) {
+            int result = code.result(i);
+            if (code.op(i) == Opcode.COPY && Operand.kind(result) == Operand.TEMP
+                    && isConstant(code.arg1(i)) && !used[Operand.id(result)])
+                removed[i] = true;
+        }
+        eliminated = code.compact(removed);
+    }
+
+    public int eliminated() {
+        return eliminated;
+    }
+
+    @Override
+    public String report() {
+        return "Propagação de constantes: " + eliminated + " instruções eliminadas";
+    }
+
+    private static int valueOf(int operand, Map<Integer, Integer> values) {
+        Integer value = values.get(operand);
+        return value == null ? operand : value;
+    }
+
+    private static boolean isConstant(int operand) {
+        return Operand.kind(operand) == Operand.CONST;
+    }
+
+    private static void markTemp(int operand, boolean[] used) {
+        if (Operand.kind(operand) == Operand.TEMP)
+            used[Operand.id(operand)] = true;
+    }
+
+    private static boolean truth(Code code, int operand) {
+        Object value = literal(code, operand);
+        return value instanceof Integer && (Integer) value != 0;
+    }
+
+    private static Object literal(Code code, int operand) {
+        return ((ConstAddress) code.addressOf(operand)).literal();
+    }
+
+    // Devolve o operando da constante resultante, ou Operand.NONE se nao der para dobrar
+    static int fold(Code code, Opcode op, Type type, int arg1, int arg2) {
+        if (!isConstant(arg1) || (op.isBinary() && !isConstant(arg2)))
+            return Operand.NONE;
+        Object a = literal(code, arg1);
+        Object b = op.isBinary() ? literal(code, arg2) : null;
+        ConstAddress folded;
+        if (a instanceof String || b instanceof String)
+            folded = foldString(op, a, b);
+        else if (a instanceof Float || b instanceof Float)
+            folded = foldFloat(op, ((Number) a).floatValue(), b == null ? 0 : ((Number) b).floatValue());
+        else
+            folded = foldInteger(op, (Integer) a, b == null ? 0 : (Integer) b);
+        if (folded == null || folded.type() != type)
+            return Operand.NONE;
+        return code.operandOf(folded);
+    }
+
+    private static ConstAddress foldInteger(Opcode op, int a, int b) {
+        switch (op) {
+            case ADD: return new ConstAddress(a + b);
+            case SUB: return new ConstAddress(a - b);
+            case MUL: return new ConstAddress(a * b);
+            case DIV: return b == 0 ? null : new ConstAddress(a / b);
+            case AND: return bool(a != 0 && b != 0);
+            case OR: return bool(a != 0 || b != 0);
+            case EQ: return bool(a == b);
+            case NE: return bool(a != b);
+            case GT: return bool(a > b);
+            case GE: return bool(a >= b);
+            case LT: return bool(a < b);
+            case LE: return bool(a <= b);
+            case NOT: return bool(a == 0);
+            case NEG: return new ConstAddress(-a);
+            case SHL: return new ConstAddress(a << b);
+            default: return null;
+        }
+    }
+
+    private static ConstAddress foldFloat(Opcode op, float a, float b) {
+        switch (op) {
+            case ADD: return finite(a + b);
+            case SUB: return finite(a - b);
+            case MUL: return finite(a * b);
+            case DIV: return b == 0 ? null : finite(a / b);
+            case EQ: return bool(a == b);
+            case NE: return bool(a != b);
+            case GT: return bool(a > b);
+            case GE: return bool(a >= b);
+            case LT: return bool(a < b);
+            case LE: return bool(a <= b);
+            case NEG: return finite(-a);
+            default: return null;
+        }
+    }
+
+    private static ConstAddress foldString(Opcode op, Object a, Object b) {
+        if (!(a instanceof String) || !(b instanceof String))
+            return null;
+        switch (op) {
+            case ADD: return new ConstAddress((String) a + b);
+            case EQ: return bool(a.equals(b));
+            default: return null;
+        }
+    }
+
+    private static ConstAddress bool(boolean value) {
+        return new ConstAddress(value ? 1 : 0);
+    }
+
+    private static ConstAddress finite(float value) {
+        return Float.isFinite(value) ? new ConstAddress(value) : null;
+    }
+}
@@ -0,0 +1,160 @@
+package generator.opt;
+
+import generator.Code;
+import generator.ir.Opcode;
+
+import java.util.Arrays;
+
+// Blocos basicos de um Code e as arestas entre eles. O bloco b vai do indice start(b) ate end(b)
+// exclusive; o bloco 0 e a entrada e um salto para o fim do codigo nao gera aresta.
+public class ControlFlowGraph {
+    private static final int[] NONE = new int[0];
+
+    private final Code code;
+    private final int[] starts;
+    private final int[] blockOf;
+    private final int[][] successors;
+    private final int[][] predecessors;
+
+    public ControlFlowGraph(Code code) {
+        this.code = code;
+        int size = code.size();
+        boolean[] leader = new boolean[size + 1];
+        leader[0] = true;
+        for (int i = 0; i < size; i++) {
+            if (code.op(i).isJump()) {
+                leader[i + 1] = true;
+                if (code.isResolved(i))
+                    leader[code.indexOf(code.target(i))] = true;
+            }
+        }
+        int blocks = 0;
+        for (int i = 0; i < size; i++) {
+            if (leader[i])
+                blocks++;
+        }
+        this.starts = new int[blocks + 1];
+        this.blockOf = new int[size];
+        int b = -1;
+        for (int i = 0; i < size; i++) {
+            if (leader[i])
+                starts[++b] = i;
+            blockOf[i] = b;
+        }
+        starts[blocks] = size;
+
+        this.successors = new int[blocks][];
+        int[] incoming = new int[blocks];
+        for (b = 0; b < blocks; b++) {
+            int last = starts[b + 1] - 1;
+            Opcode op = code.op(last);
+            int fall = op != Opcode.GOTO && b + 1 < blocks ? b + 1 : -1;
+            int jump = -1;
+            if (op.isJump() && code.isResolved(last)) {
+                int target = code.indexOf(code.target(last));
+                if (target < size)
+                    jump = blockOf[target];
+            }
+            if (fall >= 0 && jump >= 0 && fall != jump)
+                successors[b] = new int[]{fall, jump};
+            else if (fall >= 0 || jump >= 0)
+                successors[b] = new int[]{fall >= 0 ? fall : jump};
+            else
+                successors[b] = NONE;
+            for (int s : successors[b])
+                incoming[s]++;
+        }
+        this.predecessors = new int[blocks][];
+        for (b = 0; b < blocks; b++)
+            predecessors[b] = incoming[b] == 0 ? NONE : new int[incoming[b]];
+        Arrays.fill(incoming, 0);
+        for (b = 0; b < blocks; b++) {
+            for (int s : successors[b])
+                predecessors[s][incoming[s]++] = b;
+        }
+    }
+
+    public Code code() {
+        return code;
+    }
+
+    // Numero de blocos
+    public int size() {
+        return successors.length;
+    }
+
+    public int start(int block) {
+        return starts[block];
+    }
+
+    public int end(int block) {
+        return starts[block + 1];
+    }
+
+    // Ultima instrucao do bloco
+    public int last(int block) {
+        return starts[block + 1] - 1;
+    }
+
+    public int blockOf(int index) {
+        return blockOf[index];
+    }
+
+    public int[] successors(int block) {
+        return successors[block];
+    }
+
+    public int[] predecessors(int block) {
+        return predecessors[block];
+    }
+
+    // Blocos alcancaveis a partir da entrada
+    public boolean[] reachable() {
+        boolean[] seen = new boolean[size()];
+        if (size() == 0)
+            return seen;
+        int[] stack = new int[size()];
+        int top = 0;
+        stack[top++] = 0;
+        seen[0] = true;
+        while (top > 0) {
+            int b = stack[--top];
+            for (int s : successors[b]) {
+                if (!seen[s]) {
+                    seen[s] = true;
+                    stack[top++] = s;
+                }
+            }
+        }
+        return seen;
+    }
+
+    // Blocos alcancaveis em pos-ordem reversa a partir da entrada
+    public int[] reversePostorder() {
+        int blocks = size();
+        int[] order = new int[blocks];
+        if (blocks == 0)
+            return order;
+        boolean[] seen = new boolean[blocks];
+        int[] stack = new int[blocks];
+        int[] next = new int[blocks];
+        int top = 0;
+        int n = blocks;
+        stack[top++] = 0;
+        seen[0] = true;
+        while (top > 0) {
+            int b = stack[top - 1];
+            if (next[b] < successors[b].length) {
+                int s = successors[b][next[b]++];
+                if (!seen[s]) {
+                    seen[s] = true;
+                    stack[top++] = s;
+                }
+            } else {
+                top--;
+                order[--n] = b;
+            }
+        }
+        return Arrays.copyOfRange(order, n, blocks);
+    }
+}
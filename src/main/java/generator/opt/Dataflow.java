@@ -0,0 +1,155 @@
+package generator.opt;
+
+import generator.Code;
+import generator.ir.Opcode;
+
+import java.util.Arrays;
+
+// Motor generico de analise de fluxo de dados sobre os blocos basicos, com conjuntos em long[] (um bit
+// por elemento). A subclasse escolhe a direcao, o encontro (uniao para "em algum caminho", intersecao
+// para "em todo caminho"), o valor na fronteira (entrada ou saidas do programa) e a funcao de
+// transferencia de um bloco, aplicada no proprio vetor. Serve para vivacidade, definicoes que
+// alcancam, expressoes disponiveis e afins.
+// So o lado de saida de cada bloco fica guardado; o de entrada e o encontro dos vizinhos, calculado por
+// input(). Os blocos sao visitados em pos-ordem reversa (para tras, em pos-ordem), repetindo so os que
+// tiveram algum vizinho alterado, ate o ponto fixo.
+public abstract class Dataflow {
+    public enum Direction {FORWARD, BACKWARD}
+
+    public enum Meet {UNION, INTERSECTION}
+
+    protected final ControlFlowGraph cfg;
+    protected final Code code;
+    protected final int universe;
+    protected final int words;
+    private final Direction direction;
+    private final Meet meet;
+    // Valor da fronteira, refeito por input() sem alocar a cada bloco
+    private final long[] limit;
+    private long[][] output;
+
+    protected Dataflow(ControlFlowGraph cfg, int universe, Direction direction, Meet meet) {
+        this.cfg = cfg;
+        this.code = cfg.code();
+        this.universe = universe;
+        this.words = (universe + 63) >>> 6;
+        this.direction = direction;
+        this.meet = meet;
+        this.limit = new long[words];
+    }
+
+    // Conjunto na entrada do programa (para frente) ou na saida dele (para tras); vazio por padrao
+    protected void boundary(long[] set) {
+    }
+
+    // Recebe em set o valor na entrada do bloco (na saida, para tras) e deixa nele o do outro lado
+    protected abstract void transfer(int block, long[] set);
+
+    public void solve() {
+        int blocks = cfg.size();
+        output = new long[blocks][];
+        for (int b = 0; b < blocks; b++) {
+            output[b] = new long[words];
+            if (meet == Meet.INTERSECTION)
+                fill(output[b]);
+        }
+        int[] order = order();
+        boolean[] pending = new boolean[blocks];
+        for (int b : order)
+            pending[b] = true;
+        long[] set = new long[words];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int b : order) {
+                if (!pending[b])
+                    continue;
+                pending[b] = false;
+                input(b, set);
+                transfer(b, set);
+                if (Arrays.equals(set, output[b]))
+                    continue;
+                System.arraycopy(set, 0, output[b], 0, words);
+                changed = true;
+                for (int n : direction == Direction.FORWARD ? cfg.successors(b) : cfg.predecessors(b))
+                    pending[n] = true;
+            }
+        }
+    }
+
+    // Encontro dos vizinhos de block (predecessores para frente, sucessores para tras) em set
+    public void input(int block, long[] set) {
+        int[] neighbours = direction == Direction.FORWARD ? cfg.predecessors(block) : cfg.successors(block);
+        boolean edge = direction == Direction.FORWARD ? block == 0 : exits(block);
+        if (meet == Meet.UNION)
+            Arrays.fill(set, 0);
+        else
+            fill(set);
+        for (int n : neighbours) {
+            long[] other = output[n];
+            if (meet == Meet.UNION) {
+                for (int w = 0; w < words; w++)
+                    set[w] |= other[w];
+            } else {
+                for (int w = 0; w < words; w++)
+                    set[w] &= other[w];
+            }
+        }
+        if (edge) {
+            Arrays.fill(limit, 0);
+            boundary(limit);
+            if (meet == Meet.UNION) {
+                for (int w = 0; w < words; w++)
+                    set[w] |= limit[w];
+            } else if (neighbours.length == 0) {
+                System.arraycopy(limit, 0, set, 0, words);
+            } else {
+                for (int w = 0; w < words; w++)
+                    set[w] &= limit[w];
+            }
+        }
+    }
+
+    // Valor do lado de saida do bloco (entrada, para tras); nao deve ser alterado
+    public long[] output(int block) {
+        return output[block];
+    }
+
+    // O bloco pode sair do programa: cai no fim do codigo ou salta para depois dele
+    private boolean exits(int block) {
+        int last = cfg.last(block);
+        if (!code.op(last).isJump())
+            return block == cfg.size() - 1;
+        if (code.isResolved(last) && code.indexOf(code.target(last)) >= code.size())
+            return true;
+        return code.op(last) != Opcode.GOTO && block == cfg.size() - 1;
+    }
+
+    private int[] order() {
+        int[] rpo = cfg.reversePostorder();
+        if (direction == Direction.FORWARD)
+            return rpo;
+        int[] postorder = new int[rpo.length];
+        for (int k = 0; k < rpo.length; k++)
+            postorder[k] = rpo[rpo.length - 1 - k];
+        return postorder;
+    }
+
+    private void fill(long[] set) {
+        Arrays.fill(set, -1L);
+        if ((universe & 63) != 0 && words > 0)
+            set[words - 1] = (1L << universe) - 1;
+    }
+
+    public static boolean get(long[] set, int bit) {
+        return (set[bit >>> 6] & 1L << bit) != 0;
+    }
+
+    public static void set(long[] set, int bit) {
+        set[bit >>> 6] |= 1L << bit;
+    }
+
+    public static void clear(long[] set, int bit) {
+        set[bit >>> 6] &= ~(1L << bit);
+    }
+}
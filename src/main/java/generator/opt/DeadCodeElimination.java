@@ -0,0 +1,149 @@
+package generator.opt;
+
+import generator.Code;
+import generator.ir.Opcode;
+import generator.ir.Operand;
+import generator.ir.Quads;
+
+import java.util.Arrays;
+
+// Remove atribuicoes cujo destino nao e lido depois, inclusive as de temporarios do tipo ERROR que
+// sobram de expressoes com erro semantico. scan, out, declaracoes e saltos ficam, exceto em blocos
+// inalcancaveis, que saem inteiros menos as declaracoes.
+// A vivacidade e calculada para tras sobre o grafo de fluxo, na forma forte: os operandos de uma
+// atribuicao morta nao contam como lidos, entao cadeias inteiras de codigo morto caem de uma vez.
+// Variaveis e temporarios que atravessam blocos entram nos conjuntos; os temporarios locais de um
+// bloco sao resolvidos na varredura do proprio bloco. O ponto fixo fica com o Dataflow.
+public class DeadCodeElimination implements Pass {
+    private int eliminated;
+    private int deadStores;
+
+    private Code code;
+    private int[] globalId;
+    private int[] localLive;
+    private int stamp;
+
+    @Override
+    public void run(Code code) {
+        this.code = code;
+        int names = code.symbols().getTable().size();
+        ControlFlowGraph cfg = new ControlFlowGraph(code);
+        globalId = globalTemps(cfg, code.temps().size(), names);
+        localLive = new int[code.temps().size()];
+        stamp = 0;
+        int universe = names;
+        for (int id : globalId)
+            universe = Math.max(universe, id + 1);
+
+        Dataflow liveness = new Dataflow(cfg, universe, Dataflow.Direction.BACKWARD, Dataflow.Meet.UNION) {
+            @Override
+            protected void transfer(int block, long[] set) {
+                sweep(cfg, block, set, null);
+            }
+        };
+        liveness.solve();
+
+        boolean[] removed = new boolean[code.size()];
+        boolean[] reachable = cfg.reachable();
+        long[] live = new long[(universe + 63) >>> 6];
+        deadStores = 0;
+        for (int b = 0; b < cfg.size(); b++) {
+            if (!reachable[b]) {
+                for (int i = cfg.start(b); i < cfg.end(b); i++)
+                    removed[i] = code.op(i) != Opcode.DECL;
+                continue;
+            }
+            liveness.input(b, live);
+            sweep(cfg, b, live, removed);
+        }
+        eliminated = code.compact(removed);
+        this.code = null;
+    }
+
+    @Override
+    public String report() {
+        return "Código morto: " + eliminated + " instruções removidas, " + deadStores + " delas atribuições a variáveis";
+    }
+
+    // Percorre o bloco de tras para frente a partir dos vivos na saida; live termina com os vivos na
+    // entrada. Com removed, marca as atribuicoes mortas.
+    private void sweep(ControlFlowGraph cfg, int b, long[] live, boolean[] removed) {
+        stamp++;
+        for (int i = cfg.last(b); i >= cfg.start(b); i--) {
+            Opcode op = code.op(i);
+            int result = code.result(i);
+            if (isAssignment(op)) {
+                int slot = slot(result);
+                boolean isLive = slot >= 0 ? Dataflow.get(live, slot) : localLive[Operand.id(result)] == stamp;
+                if (!isLive) {
+                    if (removed != null) {
+                        removed[i] = true;
+                        if (Operand.kind(result) == Operand.NAME)
+                            deadStores++;
+                    }
+                    continue;
+                }
+            }
+            if (op == Opcode.SCAN || isAssignment(op)) {
+                int slot = slot(result);
+                if (slot >= 0)
+                    Dataflow.clear(live, slot);
+                else
+                    localLive[Operand.id(result)] = 0;
+            }
+            use(code.arg1(i), live);
+            use(code.arg2(i), live);
+        }
+    }
+
+    private void use(int operand, long[] live) {
+        int slot = slot(operand);
+        if (slot >= 0)
+            Dataflow.set(live, slot);
+        else if (Operand.kind(operand) == Operand.TEMP)
+            localLive[Operand.id(operand)] = stamp;
+    }
+
+    private static boolean isAssignment(Opcode op) {
+        return op == Opcode.COPY || op.isBinary() || op.isUnary();
+    }
+
+    // Posicao do operando nos conjuntos de vivacidade: variaveis pelo indice, temporarios globais depois
+    // delas; -1 para temporarios locais, constantes e operandos ausentes
+    private int slot(int operand) {
+        switch (Operand.kind(operand)) {
+            case Operand.NAME:
+                return Operand.id(operand);
+            case Operand.TEMP:
+                return globalId[Operand.id(operand)];
+            default:
+                return -1;
+        }
+    }
+
+    // Temporarios lidos fora do bloco onde foram escritos, ou escritos mais de uma vez
+    private int[] globalTemps(ControlFlowGraph cfg, int temps, int names) {
+        int[] defBlock = new int[temps];
+        Arrays.fill(defBlock, -1);
+        boolean[] global = new boolean[temps];
+        for (int i = 0; i < code.size(); i++) {
+            int block = cfg.blockOf(i);
+            for (int k = 0; k < Quads.ARGS; k++) {
+                int arg = code.arg(i, k);
+                if (Operand.kind(arg) == Operand.TEMP && defBlock[Operand.id(arg)] != block)
+                    global[Operand.id(arg)] = true;
+            }
+            int result = code.result(i);
+            if (Operand.kind(result) == Operand.TEMP) {
+                if (defBlock[Operand.id(result)] >= 0)
+                    global[Operand.id(result)] = true;
+                defBlock[Operand.id(result)] = block;
+            }
+        }
+        int[] ids = new int[temps];
+        int next = names;
+        for (int t = 0; t < temps; t++)
+            ids[t] = global[t] ? next++ : -1;
+        return ids;
+    }
+}
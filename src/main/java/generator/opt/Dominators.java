@@ -0,0 +1,140 @@
+package generator.opt;
+
+import java.util.Arrays;
+
+// Arvore de dominadores e fronteiras de dominancia de um grafo de fluxo, pelo algoritmo iterativo de
+// Cooper, Harvey e Kennedy: os dominadores imediatos convergem visitando os blocos em pos-ordem
+// reversa e subindo a arvore parcial ate os dois caminhos se encontrarem. Blocos inalcancaveis ficam
+// fora da arvore (idom -1) e sem fronteira.
+public class Dominators {
+    private static final int[] NONE = new int[0];
+
+    private final ControlFlowGraph cfg;
+    private final int[] rpo;
+    private final int[] rpoNumber;
+    private final int[] idom;
+    private final int[][] children;
+    private final int[][] frontier;
+
+    public Dominators(ControlFlowGraph cfg) {
+        this.cfg = cfg;
+        int blocks = cfg.size();
+        this.rpo = cfg.reversePostorder();
+        this.rpoNumber = new int[blocks];
+        Arrays.fill(rpoNumber, -1);
+        for (int k = 0; k < rpo.length; k++)
+            rpoNumber[rpo[k]] = k;
+
+        this.idom = new int[blocks];
+        Arrays.fill(idom, -1);
+        if (blocks > 0)
+            idom[0] = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int k = 1; k < rpo.length; k++) {
+                int b = rpo[k];
+                int dominator = -1;
+                for (int p : cfg.predecessors(b)) {
+                    if (idom[p] < 0)
+                        continue;
+                    dominator = dominator < 0 ? p : intersect(p, dominator);
+                }
+                if (idom[b] != dominator) {
+                    idom[b] = dominator;
+                    changed = true;
+                }
+            }
+        }
+
+        this.children = tree(blocks);
+        this.frontier = frontiers(blocks);
+    }
+
+    private int intersect(int b1, int b2) {
+        while (b1 != b2) {
+            while (rpoNumber[b1] > rpoNumber[b2])
+                b1 = idom[b1];
+            while (rpoNumber[b2] > rpoNumber[b1])
+                b2 = idom[b2];
+        }
+        return b1;
+    }
+
+    private int[][] tree(int blocks) {
+        int[] count = new int[blocks];
+        for (int b = 1; b < blocks; b++) {
+            if (idom[b] >= 0)
+                count[idom[b]]++;
+        }
+        int[][] result = new int[blocks][];
+        for (int b = 0; b < blocks; b++)
+            result[b] = count[b] == 0 ? NONE : new int[count[b]];
+        Arrays.fill(count, 0);
+        for (int b = 1; b < blocks; b++) {
+            if (idom[b] >= 0)
+                result[idom[b]][count[idom[b]]++] = b;
+        }
+        return result;
+    }
+
+    // Cada juncao b entra na fronteira dos blocos entre seus predecessores e idom(b), exclusive
+    private int[][] frontiers(int blocks) {
+        int[][] result = new int[blocks][];
+        int[] count = new int[blocks];
+        for (int b = 0; b < blocks; b++)
+            result[b] = NONE;
+        for (int b : rpo) {
+            int[] preds = cfg.predecessors(b);
+            // A entrada ja tem a aresta implicita de inicio e nao tem dominador estrito: um laco de
+            // volta a ela sobe ate a propria entrada
+            if (preds.length < (b == 0 ? 1 : 2))
+                continue;
+            int stop = b == 0 ? -1 : idom[b];
+            for (int p : preds) {
+                int runner = idom[p] < 0 ? stop : p;
+                while (runner != stop) {
+                    // Os acrescimos de b sao consecutivos, basta olhar o ultimo
+                    if (count[runner] > 0 && result[runner][count[runner] - 1] == b)
+                        break;
+                    if (count[runner] == result[runner].length)
+                        result[runner] = Arrays.copyOf(result[runner], Math.max(2, count[runner] * 2));
+                    result[runner][count[runner]++] = b;
+                    runner = runner == 0 ? -1 : idom[runner];
+                }
+            }
+        }
+        for (int b = 0; b < blocks; b++) {
+            if (result[b].length != count[b])
+                result[b] = Arrays.copyOf(result[b], count[b]);
+        }
+        return result;
+    }
+
+    public ControlFlowGraph cfg() {
+        return cfg;
+    }
+
+    // Dominador imediato; a entrada e o proprio dominador e inalcancaveis dao -1
+    public int idom(int block) {
+        return idom[block];
+    }
+
+    // Blocos dominados imediatamente por block
+    public int[] children(int block) {
+        return children[block];
+    }
+
+    public int[] frontier(int block) {
+        return frontier[block];
+    }
+
+    public boolean isReachable(int block) {
+        return idom[block] >= 0;
+    }
+
+    // Blocos alcancaveis em pos-ordem reversa
+    public int[] reversePostorder() {
+        return rpo;
+    }
+}
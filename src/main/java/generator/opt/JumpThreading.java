@@ -0,0 +1,92 @@
+package generator.opt;
+
+import generator.Code;
+import generator.ir.Opcode;
+
+// Limpa os saltos gerados por procIf/procWhile: encurta cadeias de goto (jump threading), remove
+// blocos inalcancaveis e saltos para a instrucao seguinte, e renumera os enderecos.
+public class JumpThreading implements Pass {
+    private int threaded;
+    private int fallThrough;
+    private int unreachable;
+
+    @Override
+    public void run(Code code) {
+        threaded = 0;
+        fallThrough = 0;
+        unreachable = 0;
+        boolean changed = true;
+        while (changed) {
+            threaded += thread(code);
+            boolean[] removed = new boolean[code.size()];
+            int dead = removeUnreachable(new ControlFlowGraph(code), removed);
+            int jumps = removeFallThrough(code, removed);
+            code.compact(removed);
+            unreachable += dead;
+            fallThrough += jumps;
+            changed = dead + jumps > 0;
+        }
+    }
+
+    @Override
+    public String report() {
+        return "Saltos: " + threaded + " redirecionados, " + fallThrough + " para a instrução seguinte removidos, "
+                + unreachable + " instruções inalcançáveis removidas";
+    }
+
+    // Um salto para "goto L" passa a saltar direto para L
+    private static int thread(Code code) {
+        int size = code.size();
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (!code.op(i).isJump() || !code.isResolved(i))
+                continue;
+            int target = code.indexOf(code.target(i));
+            int hops = 0;
+            while (target < size && target != i && code.op(target) == Opcode.GOTO && code.isResolved(target)
+                    && hops++ < size) {
+                int next = code.indexOf(code.target(target));
+                if (next == target)
+                    break;
+                target = next;
+            }
+            if (code.address(target) != code.target(i)) {
+                code.setTarget(i, code.address(target));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int removeUnreachable(ControlFlowGraph cfg, boolean[] removed) {
+        boolean[] reachable = cfg.reachable();
+        int count = 0;
+        for (int b = 0; b < cfg.size(); b++) {
+            if (reachable[b])
+                continue;
+            for (int i = cfg.start(b); i < cfg.end(b); i++)
+                removed[i] = true;
+            count += cfg.end(b) - cfg.start(b);
+        }
+        return count;
+    }
+
+    // De tras para frente, para que uma sequencia de saltos para o mesmo ponto caia inteira
+    private static int removeFallThrough(Code code, boolean[] removed) {
+        int size = code.size();
+        int[] nextKept = new int[size + 1];
+        nextKept[size] = size;
+        int count = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            if (!removed[i] && code.op(i).isJump() && code.isResolved(i)) {
+                int target = code.indexOf(code.target(i));
+                if (target > i && nextKept[target] == nextKept[i + 1]) {
+                    removed[i] = true;
+                    count++;
+                }
+            }
+            nextKept[i] = removed[i] ? nextKept[i + 1] : i;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,205 @@
+package generator.opt;
+
+import generator.Code;
+import generator.addresses.ConstAddress;
+import generator.ir.Opcode;
+import generator.ir.Operand;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Move para fora dos lacos do-while as quadruplas cujo valor nao muda entre iteracoes. O laco vai do
+// destino m1 de um salto para tras ate o ultimo salto para m1; o preheader fica logo antes de m1, no
+// endereco antigo de m1, entao quem entrava no laco por salto ou por continuidade passa pelo preheader,
+// e os saltos de volta seguem para a primeira instrucao que ficou no laco.
+// Uma quadrupla e invariante se cada operando e constante, nao e escrito no laco (atribuicao ou scan),
+// ou vem de uma invariante ja movida. Para ser movida, o destino precisa ter uma unica escrita no laco e
+// nao ser lido antes dela; se a quadrupla nao executa em toda iteracao (pulada por um if ou pela saida
+// do laco), so sai se o destino for um temporario usado apenas no laco. Divisoes por algo que nao seja
+// constante diferente de zero ficam.
+public class LoopInvariantMotion implements Pass {
+    private int loops;
+    private int hoisted;
+
+    @Override
+    public void run(Code code) {
+        int size = code.size();
+        loops = 0;
+        hoisted = 0;
+
+        int[] loopEnd = new int[size];
+        int[] minSource = new int[size + 1];
+        int[] maxSource = new int[size + 1];
+        Arrays.fill(loopEnd, -1);
+        Arrays.fill(minSource, Integer.MAX_VALUE);
+        Arrays.fill(maxSource, -1);
+        for (int j = 0; j < size; j++) {
+            if (!code.op(j).isJump() || !code.isResolved(j))
+                continue;
+            int t = code.indexOf(code.target(j));
+            minSource[t] = Math.min(minSource[t], j);
+            maxSource[t] = Math.max(maxSource[t], j);
+            if (t <= j)
+                loopEnd[t] = Math.max(loopEnd[t], j);
+        }
+        // So lacos em que se entra apenas por m1: nenhuma instrucao de (m1, fim] e destino de salto de
+        // fora do intervalo. Arvores de segmentos com o menor e o maior salto que chega em cada
+        // instrucao respondem cada laco em O(log n), sem varrer o corpo de novo para cada m1.
+        int[] lowest = segmentTree(minSource, size, Integer.MAX_VALUE, true);
+        int[] highest = segmentTree(maxSource, size, -1, false);
+        for (int h = 0; h < size; h++) {
+            if (loopEnd[h] < 0)
+                continue;
+            if (query(lowest, size, h + 1, loopEnd[h] + 1, Integer.MAX_VALUE, true) < h
+                    || query(highest, size, h + 1, loopEnd[h] + 1, -1, false) > loopEnd[h])
+                loopEnd[h] = -1;
+        }
+
+        int[] uses = new int[code.temps().size()];
+        for (int i = 0; i < size; i++) {
+            countTemp(code.arg1(i), uses);
+            countTemp(code.arg2(i), uses);
+        }
+
+        // Os lacos internos tem m1 maior e sao tratados antes; mover dentro de [m1, fim] nao muda os
+        // limites dos lacos que o envolvem
+        for (int h = size - 1; h >= 0; h--) {
+            if (loopEnd[h] >= 0) {
+                loops++;
+                hoisted += hoist(code, h, loopEnd[h], uses);
+            }
+        }
+    }
+
+    @Override
+    public String report() {
+        return "Invariantes de laço: " + hoisted + " instruções movidas para fora de " + loops + " laços";
+    }
+
+    private static int hoist(Code code, int header, int end, int[] uses) {
+        Map<Integer, Integer> writes = new HashMap<>();
+        Map<Integer, Integer> loopUses = new HashMap<>();
+        for (int i = header; i <= end; i++) {
+            Opcode op = code.op(i);
+            if (op == Opcode.SCAN || isAssignment(op))
+                writes.merge(code.result(i), 1, Integer::sum);
+            loopUses.merge(code.arg1(i), 1, Integer::sum);
+            loopUses.merge(code.arg2(i), 1, Integer::sum);
+        }
+
+        int n = end - header + 1;
+        boolean[] moved = new boolean[n];
+        Set<Integer> read = new HashSet<>();
+        Set<Integer> invariant = new HashSet<>();
+        int furthest = -1;
+        int count = 0;
+        for (int i = header; i <= end; i++) {
+            Opcode op = code.op(i);
+            int result = code.result(i);
+            int arg1 = code.arg1(i);
+            int arg2 = code.arg2(i);
+            boolean always = furthest <= i;
+            if (op.isJump() && code.isResolved(i) && code.indexOf(code.target(i)) > i)
+                furthest = Math.max(furthest, code.indexOf(code.target(i)));
+
+            if (isAssignment(op) && writes.get(result) == 1 && !read.contains(result)
+                    && isInvariant(arg1, writes, invariant) && isInvariant(arg2, writes, invariant)
+                    && canTrapFree(code, op, arg2)
+                    && (always || onlyInLoop(result, uses, loopUses))) {
+                moved[i - header] = true;
+                invariant.add(result);
+                count++;
+            }
+            read.add(arg1);
+            read.add(arg2);
+        }
+        if (count == 0)
+            return 0;
+
+        // Saltos para uma instrucao movida passam a ir para a proxima que ficou no laco
+        int[] stay = new int[n + 1];
+        stay[n] = end + 1;
+        for (int k = n - 1; k >= 0; k--)
+            stay[k] = moved[k] ? stay[k + 1] : header + k;
+        for (int i = header; i <= end; i++) {
+            if (!code.op(i).isJump() || !code.isResolved(i))
+                continue;
+            int t = code.indexOf(code.target(i));
+            if (t >= header && t <= end && moved[t - header])
+                code.setTarget(i, code.address(stay[t - header]));
+        }
+
+        int[] order = new int[n];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            if (moved[i])
+                order[k++] = header + i;
+        }
+        for (int i = 0; i < n; i++) {
+            if (!moved[i])
+                order[k++] = header + i;
+        }
+        code.permute(header, end + 1, order);
+        return count;
+    }
+
+    // Arvore de segmentos iterativa sobre values[0, n): folhas em [n, 2n), cada no com o minimo (ou
+    // maximo) dos dois filhos
+    private static int[] segmentTree(int[] values, int n, int identity, boolean min) {
+        int[] tree = new int[2 * n];
+        Arrays.fill(tree, 0, n, identity);
+        System.arraycopy(values, 0, tree, n, n);
+        for (int i = n - 1; i > 0; i--)
+            tree[i] = min ? Math.min(tree[2 * i], tree[2 * i + 1]) : Math.max(tree[2 * i], tree[2 * i + 1]);
+        return tree;
+    }
+
+    // Minimo (ou maximo) de values[from, to)
+    private static int query(int[] tree, int n, int from, int to, int identity, boolean min) {
+        int result = identity;
+        for (int l = from + n, r = to + n; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                int v = tree[l++];
+                result = min ? Math.min(result, v) : Math.max(result, v);
+            }
+            if ((r & 1) == 1) {
+                int v = tree[--r];
+                result = min ? Math.min(result, v) : Math.max(result, v);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isInvariant(int operand, Map<Integer, Integer> writes, Set<Integer> invariant) {
+        int kind = Operand.kind(operand);
+        if (kind == Operand.NONE || kind == Operand.CONST)
+            return true;
+        return !writes.containsKey(operand) || invariant.contains(operand);
+    }
+
+    private static boolean canTrapFree(Code code, Opcode op, int divisor) {
+        if (op != Opcode.DIV)
+            return true;
+        if (Operand.kind(divisor) != Operand.CONST)
+            return false;
+        Object value = ((ConstAddress) code.addressOf(divisor)).literal();
+        return value instanceof Number && ((Number) value).floatValue() != 0;
+    }
+
+    private static boolean onlyInLoop(int result, int[] uses, Map<Integer, Integer> loopUses) {
+        return Operand.kind(result) == Operand.TEMP
+                && uses[Operand.id(result)] == loopUses.getOrDefault(result, 0);
+    }
+
+    private static boolean isAssignment(Opcode op) {
+        return op == Opcode.COPY || op.isBinary() || op.isUnary();
+    }
+
+    private static void countTemp(int operand, int[] uses) {
+        if (Operand.kind(operand) == Operand.TEMP)
+            uses[Operand.id(operand)]++;
+    }
+}
@@ -0,0 +1,66 @@
+package generator.opt;
+
+import generator.Code;
+import generator.opt.peephole.Peephole;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+// Executa as otimizacoes na ordem dada e escreve o resumo de cada uma
+public class Optimizer {
+    private final List<Pass> passes;
+    private final PrintStream report;
+
+    public Optimizer(List<Pass> passes, PrintStream report) {
+        this.passes = passes;
+        this.report = report;
+    }
+
+    // Monta o otimizador a partir de uma lista de nomes separados por virgula, ex.: "fold,temps"
+    public static Optimizer parse(String spec, PrintStream report) {
+        List<Pass> passes = new ArrayList<>();
+        for (String name : spec.split(",")) {
+            switch (name.trim()) {
+                case "fold":
+                    passes.add(new ConstantFolding());
+                    break;
+                case "sccp":
+                    passes.add(new SparseConditionalConstants());
+                    break;
+                case "cse":
+                    passes.add(new ValueNumbering());
+                    break;
+                case "dce":
+                    passes.add(new DeadCodeElimination());
+                    break;
+                case "licm":
+                    passes.add(new LoopInvariantMotion());
+                    break;
+                case "peephole":
+                    passes.add(new Peephole());
+                    break;
+                case "uninit":
+                    passes.add(new UninitializedVariables());
+                    break;
+                case "jumps":
+                    passes.add(new JumpThreading());
+                    break;
+                case "temps":
+                    passes.add(new TempAllocation());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Otimização desconhecida: " + name);
+            }
+        }
+        return new Optimizer(passes, report);
+    }
+
+    public void run(Code code) {
+        for (Pass pass : passes) {
+            pass.run(code);
+            if (report != null)
+                report.println(pass.report());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package generator.opt;
+
+import generator.Code;
+
+// Uma otimizacao que reescreve o Code no lugar
+public interface Pass {
+
+    void run(Code code);
+
+    // Resumo do que a ultima execucao fez
+    String report();
+}
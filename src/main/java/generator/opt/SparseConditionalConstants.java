@@ -0,0 +1,324 @@
+package generator.opt;
+
+import generator.Code;
+import generator.addresses.ConstAddress;
+import generator.ir.Opcode;
+import generator.ir.Operand;
+import generator.ir.Quads;
+
+import java.util.Arrays;
+
+// Propagacao condicional esparsa de constantes (Wegman e Zadeck) sobre a forma SSA. Cada valor comeca
+// indeterminado e so desce no reticulado (constante, depois variavel); arestas do grafo de fluxo so
+// viram executaveis quando o salto que as controla pode toma-las, entao um "if" com condicao constante
+// nao propaga nada pelo lado que nunca roda e os phis ignoram esses argumentos.
+// Na volta para as quadruplas: leituras de valores constantes viram a constante, atribuicoes constantes
+// viram copias, "if" constante vira "goto" ou sai, blocos nunca executados saem (menos as declaracoes) e
+// temporarios constantes que ficaram sem leitura tambem.
+public class SparseConditionalConstants implements Pass {
+    private static final int TOP = -1;
+    private static final int BOTTOM = -2;
+
+    private int phis;
+    private int propagated;
+    private int branches;
+    private int eliminated;
+
+    private Code code;
+    private ControlFlowGraph cfg;
+    private SsaForm ssa;
+    private int[] lattice;
+    private boolean[] executable;
+    private int[] edges;
+
+    // Usuarios de cada valor: indice da instrucao ou ~phi
+    private int[] userStart;
+    private int[] users;
+
+    private int[] flowWork;
+    private int flowTop;
+    private int[] valueWork;
+    private int valueTop;
+
+    @Override
+    public void run(Code code) {
+        phis = 0;
+        propagated = 0;
+        branches = 0;
+        eliminated = 0;
+        for (int i = 0; i < code.size(); i++) {
+            if (code.op(i).isJump() && !code.isResolved(i))
+                return;
+        }
+        this.code = code;
+        this.ssa = new SsaForm(code);
+        this.cfg = ssa.cfg();
+        phis = ssa.phis();
+        if (cfg.size() > 0) {
+            propagate();
+            rewrite();
+        }
+        this.code = null;
+        this.cfg = null;
+        this.ssa = null;
+        this.lattice = null;
+        this.users = null;
+        this.userStart = null;
+    }
+
+    @Override
+    public String report() {
+        return "Propagação condicional de constantes: " + phis + " phis, " + propagated + " leituras substituídas, "
+                + branches + " desvios resolvidos, " + eliminated + " instruções eliminadas";
+    }
+
+    private void propagate() {
+        int blocks = cfg.size();
+        lattice = new int[ssa.values()];
+        Arrays.fill(lattice, TOP);
+        lattice[SsaForm.UNDEFINED] = BOTTOM;
+        executable = new boolean[blocks];
+        edges = new int[blocks];
+        buildUsers();
+        flowWork = new int[16];
+        valueWork = new int[16];
+        flowTop = 0;
+        valueTop = 0;
+
+        visit(0);
+        while (flowTop > 0 || valueTop > 0) {
+            if (flowTop > 0) {
+                int to = flowWork[--flowTop];
+                int from = flowWork[--flowTop];
+                int slot = SsaForm.indexOf(cfg.successors(from), to);
+                if ((edges[from] & 1 << slot) != 0)
+                    continue;
+                edges[from] |= 1 << slot;
+                if (!executable[to]) {
+                    visit(to);
+                } else {
+                    for (int phi = ssa.phiStart[to]; phi < ssa.phiStart[to + 1]; phi++)
+                        evaluatePhi(to, phi);
+                }
+            } else {
+                int value = valueWork[--valueTop];
+                for (int k = userStart[value]; k < userStart[value + 1]; k++) {
+                    int user = users[k];
+                    if (user < 0) {
+                        int b = blockOfPhi(~user);
+                        if (executable[b])
+                            evaluatePhi(b, ~user);
+                    } else if (executable[cfg.blockOf(user)]) {
+                        evaluate(user);
+                    }
+                }
+            }
+        }
+    }
+
+    private void visit(int b) {
+        executable[b] = true;
+        for (int phi = ssa.phiStart[b]; phi < ssa.phiStart[b + 1]; phi++)
+            evaluatePhi(b, phi);
+        for (int i = cfg.start(b); i < cfg.end(b); i++)
+            evaluate(i);
+        Opcode last = code.op(cfg.last(b));
+        if (!last.isJump() && b + 1 < cfg.size())
+            addEdge(b, b + 1);
+    }
+
+    private void evaluate(int i) {
+        Opcode op = code.op(i);
+        int b = cfg.blockOf(i);
+        switch (op) {
+            case GOTO:
+                addEdge(b, jumpBlock(i));
+                return;
+            case IF: {
+                int condition = valueOf(code.arg1(i), ssa.use1[i]);
+                if (condition == TOP)
+                    return;
+                if (condition == BOTTOM || truth(condition))
+                    addEdge(b, jumpBlock(i));
+                if (condition == BOTTOM || !truth(condition))
+                    addEdge(b, b + 1 < cfg.size() ? b + 1 : -1);
+                return;
+            }
+            default:
+                if (ssa.def[i] >= 0)
+                    lower(ssa.def[i], compute(i));
+        }
+    }
+
+    private int compute(int i) {
+        Opcode op = code.op(i);
+        if (op == Opcode.SCAN || op == Opcode.DECL)
+            return BOTTOM;
+        int a = valueOf(code.arg1(i), ssa.use1[i]);
+        int b = op.isBinary() ? valueOf(code.arg2(i), ssa.use2[i]) : Operand.NONE;
+        if (a == BOTTOM || b == BOTTOM)
+            return BOTTOM;
+        if (a == TOP || b == TOP)
+            return TOP;
+        int result = code.result(i);
+        if (op == Opcode.COPY)
+            return code.typeOf(a) == code.typeOf(result) ? a : BOTTOM;
+        int folded = ConstantFolding.fold(code, op, code.typeOf(result), a, b);
+        return Operand.kind(folded) == Operand.CONST ? folded : BOTTOM;
+    }
+
+    private void evaluatePhi(int b, int phi) {
+        int[] preds = cfg.predecessors(b);
+        int value = TOP;
+        for (int k = 0; k < preds.length; k++) {
+            int p = preds[k];
+            if ((edges[p] & 1 << SsaForm.indexOf(cfg.successors(p), b)) != 0)
+                value = meet(value, lattice[ssa.phiArgs[phi][k]]);
+        }
+        // A entrada tambem e alcancada pelo inicio do programa, onde tudo e indefinido
+        if (b == 0)
+            value = BOTTOM;
+        lower(ssa.phiValue[phi], value);
+    }
+
+    private void lower(int value, int computed) {
+        int next = meet(lattice[value], computed);
+        if (next == lattice[value])
+            return;
+        lattice[value] = next;
+        if (valueTop == valueWork.length)
+            valueWork = Arrays.copyOf(valueWork, valueTop * 2);
+        valueWork[valueTop++] = value;
+    }
+
+    private static int meet(int a, int b) {
+        if (a == TOP)
+            return b;
+        if (b == TOP || a == b)
+            return a;
+        return BOTTOM;
+    }
+
+    private void addEdge(int from, int to) {
+        if (to < 0)
+            return;
+        if (flowTop + 2 > flowWork.length)
+            flowWork = Arrays.copyOf(flowWork, flowWork.length * 2);
+        flowWork[flowTop++] = from;
+        flowWork[flowTop++] = to;
+    }
+
+    // Bloco de destino do salto i, ou -1 se ele vai para o fim do codigo
+    private int jumpBlock(int i) {
+        int target = code.indexOf(code.target(i));
+        return target < code.size() ? cfg.blockOf(target) : -1;
+    }
+
+    // Lattice do operando: constantes valem elas mesmas, variaveis o valor SSA lido
+    private int valueOf(int operand, int value) {
+        if (Operand.kind(operand) == Operand.CONST)
+            return operand;
+        return value >= 0 ? lattice[value] : BOTTOM;
+    }
+
+    private boolean truth(int constant) {
+        Object value = ((ConstAddress) code.addressOf(constant)).literal();
+        return value instanceof Integer && (Integer) value != 0;
+    }
+
+    private int blockOfPhi(int phi) {
+        int lo = 0;
+        int hi = cfg.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (ssa.phiStart[mid] <= phi)
+                lo = mid;
+            else
+                hi = mid - 1;
+        }
+        return lo;
+    }
+
+    private void buildUsers() {
+        int values = ssa.values();
+        userStart = new int[values + 1];
+        for (int i = 0; i < code.size(); i++) {
+            if (ssa.use1[i] >= 0)
+                userStart[ssa.use1[i] + 1]++;
+            if (ssa.use2[i] >= 0)
+                userStart[ssa.use2[i] + 1]++;
+        }
+        for (int phi = 0; phi < ssa.phis(); phi++) {
+            for (int arg : ssa.phiArgs[phi])
+                userStart[arg + 1]++;
+        }
+        for (int v = 0; v < values; v++)
+            userStart[v + 1] += userStart[v];
+        users = new int[userStart[values]];
+        int[] fill = Arrays.copyOf(userStart, values);
+        for (int i = 0; i < code.size(); i++) {
+            if (ssa.use1[i] >= 0)
+                users[fill[ssa.use1[i]]++] = i;
+            if (ssa.use2[i] >= 0)
+                users[fill[ssa.use2[i]]++] = i;
+        }
+        for (int phi = 0; phi < ssa.phis(); phi++) {
+            for (int arg : ssa.phiArgs[phi])
+                users[fill[arg]++] = ~phi;
+        }
+    }
+
+    // Saida da SSA: cada valor volta a ser a sua variavel original
+    private void rewrite() {
+        int size = code.size();
+        boolean[] removed = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            Opcode op = code.op(i);
+            if (!executable[cfg.blockOf(i)]) {
+                removed[i] = op != Opcode.DECL;
+                continue;
+            }
+            int result = code.result(i);
+            if (op != Opcode.SCAN && op != Opcode.DECL && ssa.def[i] >= 0 && lattice[ssa.def[i]] >= 0) {
+                code.set(i, Opcode.COPY, result, lattice[ssa.def[i]], Operand.NONE);
+                continue;
+            }
+            int arg1 = substitute(code.arg1(i), ssa.use1[i]);
+            int arg2 = substitute(code.arg2(i), ssa.use2[i]);
+            if (op == Opcode.IF && Operand.kind(arg1) == Operand.CONST) {
+                branches++;
+                if (truth(arg1))
+                    code.set(i, Opcode.GOTO, Operand.NONE, Operand.NONE, Operand.NONE);
+                else
+                    removed[i] = true;
+            } else {
+                code.set(i, op, result, arg1, arg2);
+            }
+        }
+
+        boolean[] used = new boolean[code.temps().size()];
+        for (int i = 0; i < size; i++) {
+            if (removed[i])
+                continue;
+            for (int k = 0; k < Quads.ARGS; k++) {
+                int arg = code.arg(i, k);
+                if (Operand.kind(arg) == Operand.TEMP)
+                    used[Operand.id(arg)] = true;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            int result = code.result(i);
+            if (!removed[i] && code.op(i) == Opcode.COPY && Operand.kind(result) == Operand.TEMP
+                    && Operand.kind(code.arg1(i)) == Operand.CONST && !used[Operand.id(result)])
+                removed[i] = true;
+        }
+        eliminated = code.compact(removed);
+    }
+
+    private int substitute(int operand, int value) {
+        if (value < 0 || lattice[value] < 0)
+            return operand;
+        propagated++;
+        return lattice[value];
+    }
+}
@@ -0,0 +1,300 @@
+package generator.opt;
+
+import generator.Code;
+import generator.ir.Opcode;
+import generator.ir.Operand;
+import generator.ir.Quads;
+
+import java.util.Arrays;
+
+// Forma SSA de um Code, guardada ao lado das quadruplas sem altera-las. Variaveis e temporarios sao
+// as "variaveis" da SSA (variaveis pelo indice na tabela de simbolos, temporarios depois delas); cada
+// escrita cria um valor novo e cada leitura aponta para o valor que a alcanca. Nas juncoes entram
+// phis, postos pela fronteira de dominancia iterada so para as variaveis lidas em algum bloco antes
+// de serem escritas nele (SSA semi-podada). O valor 0 e o conteudo indefinido da entrada.
+// Sair da SSA e escrever de volta nas quadruplas: cada valor pertence a uma variavel original, entao
+// enquanto as reescritas so trocarem leituras por constantes os phis somem sem precisar de copias.
+public class SsaForm {
+    public static final int UNDEFINED = 0;
+
+    private final Code code;
+    private final ControlFlowGraph cfg;
+    private final Dominators dominators;
+    private final int names;
+
+    // Valor escrito pela instrucao i (ou -1) e valores lidos em arg1 e arg2 (ou -1)
+    final int[] def;
+    final int[] use1;
+    final int[] use2;
+
+    // Phis agrupados por bloco: os do bloco b vao de phiStart[b] ate phiStart[b + 1]. Os argumentos
+    // seguem a ordem de cfg.predecessors(b).
+    final int[] phiStart;
+    final int[] phiVariable;
+    final int[] phiValue;
+    final int[][] phiArgs;
+
+    // Variavel de cada valor e onde ele e escrito: indice da instrucao, ~phi, ou -1 para UNDEFINED
+    int[] valueVariable;
+    int[] valueSite;
+    int values;
+
+    // Estado da renomeacao
+    private int[] current;
+    private int[] logVariable;
+    private int[] logValue;
+    private int log;
+
+    public SsaForm(Code code) {
+        this(new Dominators(new ControlFlowGraph(code)));
+    }
+
+    public SsaForm(Dominators dominators) {
+        this.dominators = dominators;
+        this.cfg = dominators.cfg();
+        this.code = cfg.code();
+        this.names = code.symbols().getTable().size();
+        int size = code.size();
+        int variables = names + code.temps().size();
+        this.def = new int[size];
+        this.use1 = new int[size];
+        this.use2 = new int[size];
+        Arrays.fill(def, -1);
+        Arrays.fill(use1, -1);
+        Arrays.fill(use2, -1);
+
+        int[][] placed = placePhis(variables);
+        int blocks = cfg.size();
+        this.phiStart = new int[blocks + 1];
+        for (int b = 0; b < blocks; b++)
+            phiStart[b + 1] = phiStart[b] + placed[b].length;
+        int phis = phiStart[blocks];
+        this.phiVariable = new int[phis];
+        this.phiValue = new int[phis];
+        this.phiArgs = new int[phis][];
+        for (int b = 0; b < blocks; b++) {
+            for (int k = 0; k < placed[b].length; k++) {
+                int phi = phiStart[b] + k;
+                phiVariable[phi] = placed[b][k];
+                phiArgs[phi] = new int[cfg.predecessors(b).length];
+            }
+        }
+
+        int defs = 0;
+        for (int i = 0; i < size; i++) {
+            if (defines(code.op(i)) && variable(code.result(i)) >= 0)
+                defs++;
+        }
+        this.valueVariable = new int[1 + defs + phis];
+        this.valueSite = new int[1 + defs + phis];
+        valueVariable[UNDEFINED] = -1;
+        valueSite[UNDEFINED] = -1;
+        this.values = 1;
+        rename(variables);
+    }
+
+    public Code code() {
+        return code;
+    }
+
+    public ControlFlowGraph cfg() {
+        return cfg;
+    }
+
+    public Dominators dominators() {
+        return dominators;
+    }
+
+    public int values() {
+        return values;
+    }
+
+    public int phis() {
+        return phiVariable.length;
+    }
+
+    public int variableOf(int value) {
+        return valueVariable[value];
+    }
+
+    // Indice da variavel SSA do operando, ou -1 para constantes e operandos ausentes
+    public int variable(int operand) {
+        switch (Operand.kind(operand)) {
+            case Operand.NAME:
+                return Operand.id(operand);
+            case Operand.TEMP:
+                return names + Operand.id(operand);
+            default:
+                return -1;
+        }
+    }
+
+    static boolean defines(Opcode op) {
+        return op == Opcode.COPY || op.isBinary() || op.isUnary() || op == Opcode.SCAN || op == Opcode.DECL;
+    }
+
+    // Phis de cada bloco, como listas de variaveis
+    private int[][] placePhis(int variables) {
+        int blocks = cfg.size();
+        boolean[] global = new boolean[variables];
+        int[] defCount = new int[variables];
+        int[] stamp = new int[variables];
+        // Variaveis escritas em cada bloco (sem repeticao) e lidas antes de escritas no bloco
+        for (int b = 0; b < blocks; b++) {
+            if (!dominators.isReachable(b))
+                continue;
+            for (int i = cfg.start(b); i < cfg.end(b); i++) {
+                for (int k = 0; k < Quads.ARGS; k++) {
+                    int arg = code.arg(i, k);
+                    int v = variable(arg);
+                    if (v >= 0 && stamp[v] != b + 1)
+                        global[v] = true;
+                }
+                int v = defines(code.op(i)) ? variable(code.result(i)) : -1;
+                if (v >= 0 && stamp[v] != b + 1) {
+                    stamp[v] = b + 1;
+                    defCount[v]++;
+                }
+            }
+        }
+        // Blocos que escrevem cada variavel global, em vetores compactos
+        int[] defStart = new int[variables + 1];
+        for (int v = 0; v < variables; v++)
+            defStart[v + 1] = defStart[v] + (global[v] ? defCount[v] : 0);
+        int[] defBlocks = new int[defStart[variables]];
+        int[] fill = Arrays.copyOf(defStart, variables);
+        Arrays.fill(stamp, 0);
+        for (int b = 0; b < blocks; b++) {
+            if (!dominators.isReachable(b))
+                continue;
+            for (int i = cfg.start(b); i < cfg.end(b); i++) {
+                int v = defines(code.op(i)) ? variable(code.result(i)) : -1;
+                if (v >= 0 && global[v] && stamp[v] != b + 1) {
+                    stamp[v] = b + 1;
+                    defBlocks[fill[v]++] = b;
+                }
+            }
+        }
+
+        int[][] placed = new int[blocks][];
+        int[] count = new int[blocks];
+        int[] hasPhi = new int[blocks];
+        int[] queued = new int[blocks];
+        int[] work = new int[blocks];
+        for (int b = 0; b < blocks; b++)
+            placed[b] = new int[0];
+        for (int v = 0; v < variables; v++) {
+            if (!global[v] || defStart[v] == defStart[v + 1])
+                continue;
+            int top = 0;
+            for (int k = defStart[v]; k < defStart[v + 1]; k++) {
+                work[top++] = defBlocks[k];
+                queued[defBlocks[k]] = v + 1;
+            }
+            while (top > 0) {
+                int b = work[--top];
+                for (int f : dominators.frontier(b)) {
+                    if (hasPhi[f] == v + 1)
+                        continue;
+                    hasPhi[f] = v + 1;
+                    if (count[f] == placed[f].length)
+                        placed[f] = Arrays.copyOf(placed[f], Math.max(2, count[f] * 2));
+                    placed[f][count[f]++] = v;
+                    if (queued[f] != v + 1) {
+                        queued[f] = v + 1;
+                        work[top++] = f;
+                    }
+                }
+            }
+        }
+        for (int b = 0; b < blocks; b++)
+            placed[b] = Arrays.copyOf(placed[b], count[b]);
+        return placed;
+    }
+
+    // Renomeia percorrendo a arvore de dominadores em pre-ordem. current[v] e o valor de v que alcanca
+    // o ponto atual; o log guarda os valores anteriores para desfazer ao sair de cada bloco.
+    private void rename(int variables) {
+        int blocks = cfg.size();
+        if (blocks == 0)
+            return;
+        current = new int[variables];
+        logVariable = new int[64];
+        logValue = new int[64];
+        log = 0;
+        int[] mark = new int[blocks];
+        int[] stack = new int[blocks];
+        int[] next = new int[blocks];
+        int top = 0;
+        stack[top++] = 0;
+        enter(0);
+        while (top > 0) {
+            int b = stack[top - 1];
+            int[] children = dominators.children(b);
+            if (next[b] < children.length) {
+                int c = children[next[b]++];
+                mark[c] = log;
+                stack[top++] = c;
+                enter(c);
+            } else {
+                while (log > mark[b]) {
+                    log--;
+                    current[logVariable[log]] = logValue[log];
+                }
+                top--;
+            }
+        }
+        current = null;
+        logVariable = null;
+        logValue = null;
+    }
+
+    private void enter(int b) {
+        for (int phi = phiStart[b]; phi < phiStart[b + 1]; phi++) {
+            phiValue[phi] = newValue(phiVariable[phi], ~phi);
+            push(phiVariable[phi], phiValue[phi]);
+        }
+        for (int i = cfg.start(b); i < cfg.end(b); i++) {
+            int v1 = variable(code.arg1(i));
+            int v2 = variable(code.arg2(i));
+            if (v1 >= 0)
+                use1[i] = current[v1];
+            if (v2 >= 0)
+                use2[i] = current[v2];
+            int v = defines(code.op(i)) ? variable(code.result(i)) : -1;
+            if (v >= 0) {
+                def[i] = newValue(v, i);
+                push(v, def[i]);
+            }
+        }
+        for (int s : cfg.successors(b)) {
+            int k = indexOf(cfg.predecessors(s), b);
+            for (int phi = phiStart[s]; phi < phiStart[s + 1]; phi++)
+                phiArgs[phi][k] = current[phiVariable[phi]];
+        }
+    }
+
+    private void push(int variable, int value) {
+        if (log == logVariable.length) {
+            logVariable = Arrays.copyOf(logVariable, log * 2);
+            logValue = Arrays.copyOf(logValue, log * 2);
+        }
+        logVariable[log] = variable;
+        logValue[log++] = current[variable];
+        current[variable] = value;
+    }
+
+    private int newValue(int variable, int site) {
+        valueVariable[values] = variable;
+        valueSite[values] = site;
+        return values++;
+    }
+
+    static int indexOf(int[] blocks, int block) {
+        for (int k = 0; k < blocks.length; k++) {
+            if (blocks[k] == block)
+                return k;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,198 @@
+package generator.opt;
+
+import generator.Code;
+import generator.Type;
+import generator.addresses.TempAddress;
+import generator.ir.Operand;
+import generator.ir.Quads;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Reaproveita temporarios como um alocador linear scan: calcula o intervalo de vida de cada
+// temporario e atribui a mesma vaga a temporarios do mesmo tipo cujos intervalos nao se sobrepoem.
+// Quase todo temporario nasce e morre no mesmo bloco; so os que atravessam blocos (ou sao lidos
+// antes de escritos) entram na analise de vivacidade entre blocos, que estende o intervalo.
+public class TempAllocation implements Pass {
+    private int before;
+    private int after;
+    private int bytesBefore;
+    private int bytesAfter;
+    private int variableBytes;
+
+    @Override
+    public void run(Code code) {
+        List<TempAddress> temps = code.temps();
+        int count = temps.size();
+        int size = code.size();
+        before = count;
+        bytesBefore = widthOf(temps);
+        variableBytes = code.symbols().getOffset();
+
+        ControlFlowGraph cfg = new ControlFlowGraph(code);
+
+        int[] start = new int[count];
+        int[] end = new int[count];
+        Arrays.fill(start, Integer.MAX_VALUE);
+        Arrays.fill(end, -1);
+        int[] defIndex = new int[count];
+        Arrays.fill(defIndex, -1);
+        boolean[] global = new boolean[count];
+        for (int i = 0; i < size; i++) {
+            int result = code.result(i);
+            if (isTemp(result)) {
+                int t = Operand.id(result);
+                if (defIndex[t] >= 0)
+                    global[t] = true;
+                defIndex[t] = i;
+                extend(t, i, start, end);
+            }
+            for (int k = 0; k < Quads.ARGS; k++) {
+                int arg = code.arg(i, k);
+                if (!isTemp(arg))
+                    continue;
+                int t = Operand.id(arg);
+                if (defIndex[t] < 0 || cfg.blockOf(defIndex[t]) != cfg.blockOf(i))
+                    global[t] = true;
+                extend(t, i, start, end);
+            }
+        }
+
+        int[] globalId = new int[count];
+        int globals = 0;
+        for (int t = 0; t < count; t++)
+            globalId[t] = global[t] ? globals++ : -1;
+        if (globals > 0)
+            extendGlobals(cfg, globalId, globals, start, end);
+
+        // Linear scan por tipo, em ordem de inicio do intervalo
+        Integer[] order = new Integer[count];
+        int live = 0;
+        for (int t = 0; t < count; t++) {
+            if (end[t] >= 0)
+                order[live++] = t;
+        }
+        Arrays.sort(order, 0, live, (x, y) -> Integer.compare(start[x], start[y]));
+
+        int[] map = new int[count];
+        List<TempAddress> slots = new ArrayList<>();
+        Map<Type, Deque<Integer>> free = new EnumMap<>(Type.class);
+        PriorityQueue<Integer> active = new PriorityQueue<>((x, y) -> Integer.compare(end[x], end[y]));
+        for (int k = 0; k < live; k++) {
+            int t = order[k];
+            while (!active.isEmpty() && end[active.peek()] <= start[t]) {
+                int done = active.poll();
+                free.get(temps.get(done).type()).push(map[done]);
+            }
+            Type type = temps.get(t).type();
+            Deque<Integer> available = free.computeIfAbsent(type, key -> new ArrayDeque<>());
+            if (available.isEmpty()) {
+                map[t] = slots.size();
+                slots.add(new TempAddress(type, slots.size()));
+            } else {
+                map[t] = available.pop();
+            }
+            active.add(t);
+        }
+        code.remapTemps(map, slots);
+
+        after = slots.size();
+        bytesAfter = widthOf(slots);
+    }
+
+    public int tempCount() {
+        return after;
+    }
+
+    public int frameBytes() {
+        return variableBytes + bytesAfter;
+    }
+
+    @Override
+    public String report() {
+        return "Alocação de temporários: " + before + " -> " + after + " temporários, quadro de "
+                + (variableBytes + bytesBefore) + " -> " + frameBytes() + " bytes";
+    }
+
+    // Vivacidade entre blocos so para os temporarios globais; um temporario vivo na entrada ou na
+    // saida de um bloco fica vivo no bloco todo
+    private static void extendGlobals(ControlFlowGraph cfg, int[] globalId, int globals, int[] start, int[] end) {
+        Code code = cfg.code();
+        int blocks = cfg.size();
+        BitSet[] use = new BitSet[blocks];
+        BitSet[] def = new BitSet[blocks];
+        BitSet[] in = new BitSet[blocks];
+        BitSet[] out = new BitSet[blocks];
+        for (int b = 0; b < blocks; b++) {
+            use[b] = new BitSet(globals);
+            def[b] = new BitSet(globals);
+            in[b] = new BitSet(globals);
+            out[b] = new BitSet(globals);
+            for (int i = cfg.start(b); i < cfg.end(b); i++) {
+                for (int k = 0; k < Quads.ARGS; k++) {
+                    int arg = code.arg(i, k);
+                    if (isTemp(arg) && globalId[Operand.id(arg)] >= 0 && !def[b].get(globalId[Operand.id(arg)]))
+                        use[b].set(globalId[Operand.id(arg)]);
+                }
+                int result = code.result(i);
+                if (isTemp(result) && globalId[Operand.id(result)] >= 0)
+                    def[b].set(globalId[Operand.id(result)]);
+            }
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int b = blocks - 1; b >= 0; b--) {
+                BitSet newOut = new BitSet(globals);
+                for (int s : cfg.successors(b))
+                    newOut.or(in[s]);
+                BitSet newIn = (BitSet) newOut.clone();
+                newIn.andNot(def[b]);
+                newIn.or(use[b]);
+                if (!newIn.equals(in[b]) || !newOut.equals(out[b])) {
+                    in[b] = newIn;
+                    out[b] = newOut;
+                    changed = true;
+                }
+            }
+        }
+
+        int[] temps = new int[globals];
+        for (int t = 0; t < globalId.length; t++) {
+            if (globalId[t] >= 0)
+                temps[globalId[t]] = t;
+        }
+        for (int b = 0; b < blocks; b++) {
+            BitSet live = (BitSet) in[b].clone();
+            live.or(out[b]);
+            for (int g = live.nextSetBit(0); g >= 0; g = live.nextSetBit(g + 1)) {
+                extend(temps[g], cfg.start(b), start, end);
+                extend(temps[g], cfg.last(b), start, end);
+            }
+        }
+    }
+
+    private static void extend(int t, int i, int[] start, int[] end) {
+        start[t] = Math.min(start[t], i);
+        end[t] = Math.max(end[t], i);
+    }
+
+    private static boolean isTemp(int operand) {
+        return Operand.kind(operand) == Operand.TEMP;
+    }
+
+    private static int widthOf(List<TempAddress> temps) {
+        int bytes = 0;
+        for (TempAddress temp : temps)
+            bytes += temp.getWidth();
+        return bytes;
+    }
+}
@@ -0,0 +1,78 @@
+package generator.opt;
+
+import generator.Code;
+import generator.ir.Opcode;
+import generator.ir.Operand;
+import generator.ir.Quads;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Aponta variaveis declaradas que podem ser lidas antes de qualquer atribuicao ou scan. E uma analise
+// para frente com uniao sobre as variaveis: a declaracao poe a variavel no conjunto das possivelmente
+// sem valor e uma atribuicao ou scan tira. So conta leitura em bloco alcancavel; o codigo nao muda.
+public class UninitializedVariables implements Pass {
+    private final List<String> variables = new ArrayList<>();
+
+    @Override
+    public void run(Code code) {
+        variables.clear();
+        ControlFlowGraph cfg = new ControlFlowGraph(code);
+        int names = code.symbols().getTable().size();
+        Dataflow analysis = new Dataflow(cfg, names, Dataflow.Direction.FORWARD, Dataflow.Meet.UNION) {
+            @Override
+            protected void transfer(int block, long[] set) {
+                for (int i = cfg.start(block); i < cfg.end(block); i++)
+                    define(code, i, set);
+            }
+        };
+        analysis.solve();
+
+        int[] firstRead = new int[names];
+        Arrays.fill(firstRead, -1);
+        long[] set = new long[(names + 63) >>> 6];
+        for (int b : cfg.reversePostorder()) {
+            analysis.input(b, set);
+            for (int i = cfg.start(b); i < cfg.end(b); i++) {
+                for (int k = 0; k < Quads.ARGS; k++) {
+                    int arg = code.arg(i, k);
+                    if (Operand.kind(arg) != Operand.NAME)
+                        continue;
+                    int id = Operand.id(arg);
+                    if (Dataflow.get(set, id) && (firstRead[id] < 0 || i < firstRead[id]))
+                        firstRead[id] = i;
+                }
+                define(code, i, set);
+            }
+        }
+        for (int id = 0; id < names; id++) {
+            if (firstRead[id] >= 0)
+                variables.add(code.nameOf(Operand.of(Operand.NAME, id)) + " (" + code.address(firstRead[id]) + ")");
+        }
+    }
+
+    private static void define(Code code, int i, long[] set) {
+        Opcode op = code.op(i);
+        int result = code.result(i);
+        if (Operand.kind(result) != Operand.NAME)
+            return;
+        if (op == Opcode.DECL)
+            Dataflow.set(set, Operand.id(result));
+        else if (op == Opcode.SCAN || op == Opcode.COPY || op.isBinary() || op.isUnary())
+            Dataflow.clear(set, Operand.id(result));
+    }
+
+    // Variaveis encontradas, com o endereco da primeira leitura suspeita
+    public List<String> variables() {
+        return variables;
+    }
+
+    @Override
+    public String report() {
+        if (variables.isEmpty())
+            return "Variáveis sem valor: nenhuma variável é lida antes de receber valor";
+        return "Variáveis sem valor: " + variables.size() + " podem ser lidas antes de receber valor: "
+                + String.join(", ", variables);
+    }
+}
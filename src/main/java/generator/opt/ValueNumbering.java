@@ -0,0 +1,147 @@
+package generator.opt;
+
+import generator.Code;
+import generator.Type;
+import generator.ir.Opcode;
+import generator.ir.Operand;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Numeracao de valores local: dentro de cada bloco basico, uma operacao cujos operandos tem os mesmos
+// numeros de valor de uma anterior reaproveita o temporario que ja guarda o resultado. Operadores
+// comutativos (e a > b contra b < a) sao normalizados; "+" de strings nao e comutativo. Toda escrita
+// (atribuicao, scan, declaracao) da um numero novo ao destino, o que invalida as entradas antigas.
+public class ValueNumbering implements Pass {
+    private int reused;
+    private int eliminated;
+    private int next;
+
+    @Override
+    public void run(Code code) {
+        ControlFlowGraph cfg = new ControlFlowGraph(code);
+        Map<Integer, Integer> numbers = new HashMap<>();
+        Map<Long, Integer> expressions = new HashMap<>();
+        Map<Integer, Integer> homes = new HashMap<>();
+        next = 0;
+        reused = 0;
+
+        for (int b = 0; b < cfg.size(); b++) {
+            numbers.clear();
+            expressions.clear();
+            homes.clear();
+            for (int i = cfg.start(b); i < cfg.end(b); i++) {
+                Opcode op = code.op(i);
+                int result = code.result(i);
+                int arg1 = home(code.arg1(i), numbers, homes);
+                int arg2 = home(code.arg2(i), numbers, homes);
+                if (op != Opcode.DECL && op != Opcode.SCAN && op != Opcode.GOTO)
+                    code.set(i, op, result, arg1, arg2);
+
+                switch (op) {
+                    case DECL:
+                    case SCAN:
+                        define(result, next++, numbers, homes);
+                        break;
+                    case COPY: {
+                        int value = number(arg1, numbers);
+                        homes.putIfAbsent(value, arg1);
+                        define(result, value, numbers, homes);
+                        break;
+                    }
+                    default:
+                        if (!op.isBinary() && !op.isUnary())
+                            break;
+                        boolean commutes = !(op == Opcode.ADD && code.typeOf(arg1) == Type.STRING);
+                        long key = key(op, number(arg1, numbers), op.isBinary() ? number(arg2, numbers) : 0, commutes);
+                        Integer value = expressions.get(key);
+                        Integer home = value == null ? null : homes.get(value);
+                        if (home != null && code.typeOf(home) == code.typeOf(result)) {
+                            code.set(i, Opcode.COPY, result, home, Operand.NONE);
+                            define(result, value, numbers, homes);
+                            reused++;
+                        } else {
+                            value = next++;
+                            expressions.put(key, value);
+                            define(result, value, numbers, homes);
+                            homes.put(value, result);
+                        }
+                        break;
+                }
+            }
+        }
+
+        // Copias para temporarios que nao sao mais lidos
+        boolean[] used = new boolean[code.temps().size()];
+        for (int i = 0; i < code.size(); i++) {
+            markTemp(code.arg1(i), used);
+            markTemp(code.arg2(i), used);
+        }
+        boolean[] removed = new boolean[code.size()];
+        for (int i = 0; i < code.size(); i++) {
+            int result = code.result(i);
+            if (code.op(i) == Opcode.COPY && Operand.kind(result) == Operand.TEMP && !used[Operand.id(result)])
+                removed[i] = true;
+        }
+        eliminated = code.compact(removed);
+    }
+
+    @Override
+    public String report() {
+        return "Subexpressões comuns: " + reused + " reaproveitadas, " + eliminated + " instruções eliminadas";
+    }
+
+    // Leituras de temporarios passam a usar o operando mais antigo que guarda o mesmo valor
+    private static int home(int operand, Map<Integer, Integer> numbers, Map<Integer, Integer> homes) {
+        if (Operand.kind(operand) != Operand.TEMP)
+            return operand;
+        Integer value = numbers.get(operand);
+        Integer home = value == null ? null : homes.get(value);
+        return home == null ? operand : home;
+    }
+
+    // Operando lido antes de qualquer escrita no bloco ganha um numero novo na primeira leitura
+    private int number(int operand, Map<Integer, Integer> numbers) {
+        Integer value = numbers.get(operand);
+        if (value == null) {
+            value = next++;
+            numbers.put(operand, value);
+        }
+        return value;
+    }
+
+    private static void define(int operand, int value, Map<Integer, Integer> numbers, Map<Integer, Integer> homes) {
+        Integer old = numbers.put(operand, value);
+        if (old != null && homes.get(old) != null && homes.get(old) == operand)
+            homes.remove(old);
+    }
+
+    private static long key(Opcode op, int value1, int value2, boolean commutes) {
+        switch (op) {
+            case GT:
+                return key(Opcode.LT, value2, value1, true);
+            case GE:
+                return key(Opcode.LE, value2, value1, true);
+            case ADD:
+            case MUL:
+            case EQ:
+            case NE:
+            case AND:
+            case OR:
+                if (commutes && value1 > value2) {
+                    int swap = value1;
+                    value1 = value2;
+                    value2 = swap;
+                }
+                break;
+            default:
+                break;
+        }
+        return (long) op.ordinal() << 58 | (value1 & 0x1fffffffL) << 29 | value2 & 0x1fffffffL;
+    }
+
+    private static void markTemp(int operand, boolean[] used) {
+        if (Operand.kind(operand) == Operand.TEMP)
+            used[Operand.id(operand)] = true;
+    }
+}
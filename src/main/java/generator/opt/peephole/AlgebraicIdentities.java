@@ -0,0 +1,83 @@
+package generator.opt.peephole;
+
+import generator.Code;
+import generator.Type;
+import generator.ir.Opcode;
+import generator.ir.Operand;
+
+// Identidades algebricas: x + 0, x - 0, x * 1 e x / 1 viram copia de x; x * 0 e x - x inteiros
+// viram 0; - - x vira x. Com float, x + 0.0 fica, porque muda o sinal de -0.0.
+public class AlgebraicIdentities extends PeepholeRule {
+
+    public AlgebraicIdentities() {
+        super("identidades");
+    }
+
+    @Override
+    protected boolean apply(Window window, int i) {
+        Code code = window.code();
+        Opcode op = code.op(i);
+        int result = code.result(i);
+        int arg1 = code.arg1(i);
+        int arg2 = code.arg2(i);
+        Type type = code.typeOf(result);
+        switch (op) {
+            case ADD:
+                if (type == Type.INTEGER && isInt(window.literal(arg2), 0))
+                    return copy(code, i, result, arg1);
+                if (type == Type.INTEGER && isInt(window.literal(arg1), 0))
+                    return copy(code, i, result, arg2);
+                return false;
+            case SUB:
+                if (isZero(window.literal(arg2)))
+                    return copy(code, i, result, arg1);
+                if (type == Type.INTEGER && arg1 == arg2)
+                    return copy(code, i, result, window.constant(0));
+                return false;
+            case MUL:
+                if (isOne(window.literal(arg2)))
+                    return copy(code, i, result, arg1);
+                if (isOne(window.literal(arg1)))
+                    return copy(code, i, result, arg2);
+                if (type == Type.INTEGER && (isInt(window.literal(arg1), 0) || isInt(window.literal(arg2), 0)))
+                    return copy(code, i, result, window.constant(0));
+                return false;
+            case DIV:
+                if (isOne(window.literal(arg2)))
+                    return copy(code, i, result, arg1);
+                return false;
+            case NEG: {
+                int previous = window.previous(i);
+                if (previous < 0 || code.op(previous) != Opcode.NEG || code.result(previous) != arg1
+                        || Operand.kind(arg1) != Operand.TEMP || window.uses(arg1) != 1)
+                    return false;
+                if (!copy(code, i, result, code.arg1(previous)))
+                    return false;
+                window.remove(previous);
+                return true;
+            }
+            default:
+                return false;
+        }
+    }
+
+    // So vale se a copia preserva o tipo do destino
+    private static boolean copy(Code code, int i, int result, int value) {
+        if (code.typeOf(value) != code.typeOf(result))
+            return false;
+        code.set(i, Opcode.COPY, result, value, Operand.NONE);
+        return true;
+    }
+
+    private static boolean isInt(Object value, int n) {
+        return value instanceof Integer && (Integer) value == n;
+    }
+
+    private static boolean isZero(Object value) {
+        return value instanceof Number && ((Number) value).floatValue() == 0;
+    }
+
+    private static boolean isOne(Object value) {
+        return value instanceof Number && ((Number) value).floatValue() == 1;
+    }
+}
@@ -0,0 +1,31 @@
+package generator.opt.peephole;
+
+import generator.Code;
+import generator.ir.Opcode;
+import generator.ir.Operand;
+
+// "t = b op c" seguido de "a = t", com t lido so ali, vira "a = b op c"
+public class CopyCoalescing extends PeepholeRule {
+
+    public CopyCoalescing() {
+        super("coalescência de cópias");
+    }
+
+    @Override
+    protected boolean apply(Window window, int i) {
+        Code code = window.code();
+        Opcode op = code.op(i);
+        int temp = code.result(i);
+        if (!(op == Opcode.COPY || op.isBinary() || op.isUnary()) || Operand.kind(temp) != Operand.TEMP)
+            return false;
+        int next = window.next(i);
+        if (next < 0 || code.op(next) != Opcode.COPY || code.arg1(next) != temp || window.uses(temp) != 1)
+            return false;
+        int target = code.result(next);
+        if (code.typeOf(target) != code.typeOf(temp))
+            return false;
+        code.set(i, op, target, code.arg1(i), code.arg2(i));
+        window.remove(next);
+        return true;
+    }
+}
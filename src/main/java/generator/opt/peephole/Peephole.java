@@ -0,0 +1,56 @@
+package generator.opt.peephole;
+
+import generator.Code;
+import generator.opt.Pass;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Otimizador de janela: passa cada regra em cada instrucao e repete enquanto alguma regra casar.
+// As regras sao plugaveis; cada uma conta quantas vezes foi aplicada.
+public class Peephole implements Pass {
+    private final List<PeepholeRule> rules;
+    private int eliminated;
+
+    public Peephole() {
+        this(Arrays.asList(new StrengthReduction(), new AlgebraicIdentities(),
+                new CopyCoalescing(), new RedundantJumps()));
+    }
+
+    public Peephole(List<PeepholeRule> rules) {
+        this.rules = new ArrayList<>(rules);
+    }
+
+    public List<PeepholeRule> rules() {
+        return rules;
+    }
+
+    @Override
+    public void run(Code code) {
+        rules.forEach(PeepholeRule::reset);
+        eliminated = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            Window window = new Window(code);
+            for (int i = 0; i < code.size(); i++) {
+                for (PeepholeRule rule : rules) {
+                    if (window.isRemoved(i))
+                        break;
+                    if (rule.tryApply(window, i))
+                        changed = true;
+                }
+            }
+            eliminated += code.compact(window.removed());
+        }
+    }
+
+    @Override
+    public String report() {
+        StringBuilder sb = new StringBuilder("Peephole: ").append(eliminated).append(" instruções eliminadas");
+        for (PeepholeRule rule : rules)
+            sb.append(", ").append(rule.name()).append(" ").append(rule.hits());
+        return sb.toString();
+    }
+}
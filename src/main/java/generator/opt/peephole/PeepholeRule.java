@@ -0,0 +1,33 @@
+package generator.opt.peephole;
+
+// Uma regra do peephole: olha a instrucao i e as vizinhas da janela e reescreve quando casa
+public abstract class PeepholeRule {
+    private final String name;
+    private int hits;
+
+    protected PeepholeRule(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int hits() {
+        return hits;
+    }
+
+    void reset() {
+        hits = 0;
+    }
+
+    boolean tryApply(Window window, int i) {
+        if (!apply(window, i))
+            return false;
+        hits++;
+        return true;
+    }
+
+    // Devolve true se reescreveu alguma instrucao
+    protected abstract boolean apply(Window window, int i);
+}
@@ -0,0 +1,69 @@
+package generator.opt.peephole;
+
+import generator.Code;
+import generator.Type;
+import generator.ir.Opcode;
+import generator.ir.Operand;
+
+// Saltos redundantes: salto para a instrucao seguinte sai; salto para um goto vai direto ao destino
+// dele; e "t = a op b; if t goto L1; goto L2; L1:" com op relacional entre inteiros vira
+// "t = a !op b; if t goto L2".
+public class RedundantJumps extends PeepholeRule {
+
+    public RedundantJumps() {
+        super("saltos redundantes");
+    }
+
+    @Override
+    protected boolean apply(Window window, int i) {
+        Code code = window.code();
+        Opcode op = code.op(i);
+        if (!op.isJump() || !code.isResolved(i))
+            return false;
+        int target = code.indexOf(code.target(i));
+        int following = window.following(i + 1);
+        if (window.following(target) == following) {
+            window.remove(i);
+            return true;
+        }
+        int landing = window.following(target);
+        if (landing < code.size() && landing != i && code.op(landing) == Opcode.GOTO && code.isResolved(landing)
+                && code.target(landing) != code.target(i) && window.following(code.indexOf(code.target(landing))) != landing) {
+            code.setTarget(i, code.target(landing));
+            return true;
+        }
+        return op == Opcode.IF && invert(window, i, target);
+    }
+
+    private static boolean invert(Window window, int i, int target) {
+        Code code = window.code();
+        int jump = window.next(i);
+        if (jump < 0 || code.op(jump) != Opcode.GOTO || !code.isResolved(jump)
+                || window.following(target) != window.following(jump + 1))
+            return false;
+        int condition = code.arg1(i);
+        int def = window.previous(i);
+        if (def < 0 || code.result(def) != condition || Operand.kind(condition) != Operand.TEMP
+                || window.uses(condition) != 1)
+            return false;
+        Opcode inverse = inverse(code.op(def));
+        if (inverse == null || code.typeOf(code.arg1(def)) != Type.INTEGER || code.typeOf(code.arg2(def)) != Type.INTEGER)
+            return false;
+        code.set(def, inverse, condition, code.arg1(def), code.arg2(def));
+        code.setTarget(i, code.target(jump));
+        window.remove(jump);
+        return true;
+    }
+
+    private static Opcode inverse(Opcode op) {
+        switch (op) {
+            case EQ: return Opcode.NE;
+            case NE: return Opcode.EQ;
+            case GT: return Opcode.LE;
+            case GE: return Opcode.LT;
+            case LT: return Opcode.GE;
+            case LE: return Opcode.GT;
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package generator.opt.peephole;
+
+import generator.Code;
+import generator.Type;
+import generator.ir.Opcode;
+
+// Multiplicacao inteira por 2^k vira x + x (k = 1) ou x << k; divisao de float por potencia de dois
+// vira multiplicacao pelo inverso, que e exato. Divisao inteira fica: x >> k arredonda diferente
+// para negativos.
+public class StrengthReduction extends PeepholeRule {
+
+    public StrengthReduction() {
+        super("redução de força");
+    }
+
+    @Override
+    protected boolean apply(Window window, int i) {
+        Code code = window.code();
+        Opcode op = code.op(i);
+        int result = code.result(i);
+        if (op == Opcode.MUL && code.typeOf(result) == Type.INTEGER) {
+            int x = code.arg1(i);
+            int shift = log2(window.literal(code.arg2(i)));
+            if (shift < 0) {
+                x = code.arg2(i);
+                shift = log2(window.literal(code.arg1(i)));
+            }
+            if (shift < 1)
+                return false;
+            if (shift == 1)
+                code.set(i, Opcode.ADD, result, x, x);
+            else
+                code.set(i, Opcode.SHL, result, x, window.constant(shift));
+            return true;
+        }
+        if (op == Opcode.DIV && code.typeOf(result) == Type.FLOAT) {
+            Object divisor = window.literal(code.arg2(i));
+            if (!(divisor instanceof Number))
+                return false;
+            float value = ((Number) divisor).floatValue();
+            float inverse = 1 / value;
+            if (value == 1 || !Float.isFinite(inverse) || !isPowerOfTwo(Math.abs(value)) || inverse * value != 1)
+                return false;
+            code.set(i, Opcode.MUL, result, code.arg1(i), window.constant(inverse));
+            return true;
+        }
+        return false;
+    }
+
+    // k tal que value == 2^k para um inteiro positivo, ou -1
+    private static int log2(Object value) {
+        if (!(value instanceof Integer))
+            return -1;
+        int n = (Integer) value;
+        return n > 0 && Integer.bitCount(n) == 1 ? Integer.numberOfTrailingZeros(n) : -1;
+    }
+
+    private static boolean isPowerOfTwo(float value) {
+        return value >= Float.MIN_NORMAL && (Float.floatToIntBits(value) & 0x7fffff) == 0;
+    }
+}
@@ -0,0 +1,105 @@
+package generator.opt.peephole;
+
+import generator.Code;
+import generator.addresses.ConstAddress;
+import generator.ir.Operand;
+
+// Estado de uma varredura do peephole: o codigo, as instrucoes ja removidas, quais sao destino de
+// salto e quantas vezes cada temporario e lido. Uma janela nunca atravessa um destino de salto.
+public class Window {
+    private final Code code;
+    private final boolean[] removed;
+    private final boolean[] target;
+    private final int[] uses;
+
+    Window(Code code) {
+        this.code = code;
+        int size = code.size();
+        this.removed = new boolean[size];
+        this.target = new boolean[size + 1];
+        this.uses = new int[code.temps().size()];
+        for (int i = 0; i < size; i++) {
+            if (code.op(i).isJump() && code.isResolved(i))
+                target[code.indexOf(code.target(i))] = true;
+            countUse(code.arg1(i));
+            countUse(code.arg2(i));
+        }
+    }
+
+    public Code code() {
+        return code;
+    }
+
+    // Proxima instrucao viva depois de i no mesmo bloco, ou -1
+    public int next(int i) {
+        for (int j = i + 1; j < code.size(); j++) {
+            if (target[j])
+                return -1;
+            if (!removed[j])
+                return j;
+        }
+        return -1;
+    }
+
+    // Instrucao viva anterior a i no mesmo bloco, ou -1
+    public int previous(int i) {
+        if (target[i])
+            return -1;
+        for (int j = i - 1; j >= 0; j--) {
+            if (!removed[j])
+                return code.op(j).isJump() ? -1 : j;
+            if (target[j])
+                return -1;
+        }
+        return -1;
+    }
+
+    // Indice da proxima instrucao viva a partir de i, atravessando destinos de salto
+    public int following(int i) {
+        int j = i;
+        while (j < code.size() && removed[j])
+            j++;
+        return j;
+    }
+
+    public boolean isRemoved(int i) {
+        return removed[i];
+    }
+
+    public void remove(int i) {
+        removed[i] = true;
+    }
+
+    public boolean isTarget(int i) {
+        return target[i];
+    }
+
+    // Leituras do temporario; outros operandos contam como lidos em mais de um lugar
+    public int uses(int operand) {
+        return Operand.kind(operand) == Operand.TEMP ? uses[Operand.id(operand)] : Integer.MAX_VALUE;
+    }
+
+    boolean[] removed() {
+        return removed;
+    }
+
+    // Valor da constante, ou null se o operando nao for constante
+    public Object literal(int operand) {
+        if (Operand.kind(operand) != Operand.CONST)
+            return null;
+        return ((ConstAddress) code.addressOf(operand)).literal();
+    }
+
+    public int constant(int value) {
+        return code.operandOf(new ConstAddress(value));
+    }
+
+    public int constant(float value) {
+        return code.operandOf(new ConstAddress(value));
+    }
+
+    private void countUse(int operand) {
+        if (Operand.kind(operand) == Operand.TEMP)
+            uses[Operand.id(operand)]++;
+    }
+}
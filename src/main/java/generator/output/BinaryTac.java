@@ -0,0 +1,109 @@
+package generator.output;
+
+import generator.Code;
+import generator.CurrentSymbolTable;
+import generator.addresses.ConstAddress;
+import generator.addresses.NameAddress;
+import generator.addresses.TempAddress;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Formato binario do codigo de tres enderecos (little-endian, secoes alinhadas em 4 bytes):
+//   cabecalho  MAGIC, VERSION, startAddr, instrucoes, simbolos, temporarios, constantes, bytes de texto
+//   simbolos   nameOff, nameLen, offset (int), width (short), type (byte), pad
+//   temps      copy (int), type (byte), pad[3]
+//   constantes type (byte), pad[3], a, b (int): INTEGER a = valor, FLOAT a = bits, STRING a = off, b = len
+//   registros  op (byte), pad[3], result, arg1, arg2, target (int); operandos no formato de Operand
+//   texto      nomes e strings em Latin-1, sem aspas
+public class BinaryTac {
+    static final int MAGIC = 0x31434154; // "TAC1"
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 32;
+    static final int SYMBOL_SIZE = 16;
+    static final int TEMP_SIZE = 8;
+    static final int CONST_SIZE = 12;
+    static final int RECORD_SIZE = 20;
+
+    private BinaryTac() {
+    }
+
+    public static void write(Code code, String filename) throws IOException {
+        if (code.firstRetained() > 0)
+            throw new IllegalStateException("Parte do código já foi descartada pelo streaming");
+
+        List<NameAddress> names = code.symbols().getTable();
+        List<TempAddress> temps = code.temps();
+        List<ConstAddress> constants = code.constants();
+        int count = code.size();
+
+        byte[][] nameBytes = new byte[names.size()][];
+        int textBytes = 0;
+        for (int i = 0; i < nameBytes.length; i++) {
+            nameBytes[i] = names.get(i).value().getBytes(StandardCharsets.ISO_8859_1);
+            textBytes += nameBytes[i].length;
+        }
+        byte[][] stringBytes = new byte[constants.size()][];
+        for (int i = 0; i < stringBytes.length; i++) {
+            Object literal = constants.get(i).literal();
+            if (literal instanceof String) {
+                stringBytes[i] = ((String) literal).getBytes(StandardCharsets.ISO_8859_1);
+                textBytes += stringBytes[i].length;
+            }
+        }
+
+        int total = HEADER_SIZE + names.size() * SYMBOL_SIZE + temps.size() * TEMP_SIZE
+                + constants.size() * CONST_SIZE + count * RECORD_SIZE + textBytes;
+        ByteBuffer out = ByteBuffer.allocate(total).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putInt(code.startAddr()).putInt(count)
+                .putInt(names.size()).putInt(temps.size()).putInt(constants.size()).putInt(textBytes);
+
+        CurrentSymbolTable symbols = code.symbols();
+        int text = 0;
+        for (int i = 0; i < nameBytes.length; i++) {
+            NameAddress name = names.get(i);
+            out.putInt(text).putInt(nameBytes[i].length).putInt(symbols.offsetOf(i))
+                    .putShort((short) name.width()).put((byte) name.type().ordinal()).put((byte) 0);
+            text += nameBytes[i].length;
+        }
+        for (TempAddress temp : temps)
+            out.putInt(temp.getCopy()).put((byte) temp.type().ordinal()).put((byte) 0).putShort((short) 0);
+        for (int i = 0; i < stringBytes.length; i++) {
+            ConstAddress constant = constants.get(i);
+            out.put((byte) constant.type().ordinal()).put((byte) 0).putShort((short) 0);
+            Object literal = constant.literal();
+            if (literal instanceof Integer) {
+                out.putInt((Integer) literal).putInt(0);
+            } else if (literal instanceof Float) {
+                out.putInt(Float.floatToRawIntBits((Float) literal)).putInt(0);
+            } else {
+                out.putInt(text).putInt(stringBytes[i].length);
+                text += stringBytes[i].length;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            out.put((byte) code.op(i).ordinal()).put((byte) 0).putShort((short) 0)
+                    .putInt(code.result(i)).putInt(code.arg1(i)).putInt(code.arg2(i)).putInt(code.target(i));
+        }
+        for (byte[] bytes : nameBytes)
+            out.put(bytes);
+        for (byte[] bytes : stringBytes) {
+            if (bytes != null)
+                out.put(bytes);
+        }
+        out.flip();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining())
+                channel.write(out);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package generator.output;
+
+// Formatos de saida do codigo gerado
+public enum Format {
+    TEXT,
+    JSON;
+
+    // Formato a partir do nome dado em --format=, sem diferenciar maiusculas
+    public static Format parse(String name) {
+        for (Format format : values()) {
+            if (format.name().equalsIgnoreCase(name))
+                return format;
+        }
+        throw new IllegalArgumentException("Formato desconhecido: " + name);
+    }
+}
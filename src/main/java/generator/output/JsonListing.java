@@ -0,0 +1,77 @@
+package generator.output;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import generator.Code;
+import generator.CurrentSymbolTable;
+import generator.addresses.NameAddress;
+import generator.ir.Opcode;
+import generator.ir.Operand;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+// Exporta a tabela de simbolos e as quadruplas em JSON, escrevendo direto no stream
+// pelo JsonGenerator, sem montar arvore nem String intermediaria:
+// {"start":100,"symbols":[{"name","type","width","offset"}...],
+//  "code":[{"address","op","result","arg1","arg2","target"}...]}
+public class JsonListing {
+    private static final JsonFactory FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private JsonListing() {
+    }
+
+    public static void write(Code code, OutputStream out) throws IOException {
+        try (JsonGenerator json = FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeNumberField("start", code.startAddr());
+
+            CurrentSymbolTable symbols = code.symbols();
+            List<NameAddress> table = symbols.getTable();
+            json.writeArrayFieldStart("symbols");
+            for (int i = 0; i < table.size(); i++) {
+                NameAddress name = table.get(i);
+                json.writeStartObject();
+                json.writeStringField("name", name.value());
+                json.writeStringField("type", name.type().name());
+                json.writeNumberField("width", name.width());
+                json.writeNumberField("offset", symbols.offsetOf(i));
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+
+            json.writeArrayFieldStart("code");
+            for (int i = code.firstRetained(); i < code.size(); i++)
+                writeInstruction(code, i, json);
+            json.writeEndArray();
+
+            json.writeEndObject();
+        }
+    }
+
+    private static void writeInstruction(Code code, int i, JsonGenerator json) throws IOException {
+        Opcode op = code.op(i);
+        json.writeStartObject();
+        json.writeNumberField("address", code.address(i));
+        json.writeStringField("op", op.name());
+        writeOperand("result", code.result(i), code, json);
+        writeOperand("arg1", code.arg1(i), code, json);
+        writeOperand("arg2", code.arg2(i), code, json);
+        if (op.isJump()) {
+            if (code.isResolved(i))
+                json.writeNumberField("target", code.target(i));
+            else
+                json.writeNullField("target");
+        }
+        json.writeEndObject();
+    }
+
+    // Operandos ausentes sao omitidos; os presentes saem como no texto da listagem
+    private static void writeOperand(String field, int operand, Code code, JsonGenerator json) throws IOException {
+        if (Operand.kind(operand) != Operand.NONE)
+            json.writeStringField(field, code.nameOf(operand));
+    }
+}
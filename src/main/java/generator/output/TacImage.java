@@ -0,0 +1,167 @@
+package generator.output;
+
+import generator.Type;
+import generator.ir.Opcode;
+import generator.ir.Operand;
+import generator.ir.Quads;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import static generator.output.BinaryTac.*;
+
+// Codigo de tres enderecos lido de um arquivo gerado por BinaryTac. O arquivo e mapeado em memoria
+// e as quadruplas sao lidas direto do mapeamento, sem copia; so os nomes viram String quando pedidos.
+public class TacImage implements Quads {
+    private static final Type[] TYPES = Type.values();
+
+    private final ByteBuffer buffer;
+    private final int startAddr;
+    private final int size;
+    private final int symbols;
+    private final int temps;
+    private final int constants;
+    private final int records;
+    private final int text;
+
+    private TacImage(ByteBuffer buffer) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+            throw new IllegalArgumentException("Arquivo TAC inválido");
+        if (buffer.getInt(4) != VERSION)
+            throw new IllegalArgumentException("Versão do arquivo TAC não suportada: " + buffer.getInt(4));
+        this.startAddr = buffer.getInt(8);
+        this.size = buffer.getInt(12);
+        this.symbols = HEADER_SIZE;
+        this.temps = symbols + buffer.getInt(16) * SYMBOL_SIZE;
+        this.constants = temps + buffer.getInt(20) * TEMP_SIZE;
+        this.records = constants + buffer.getInt(24) * CONST_SIZE;
+        this.text = records + size * RECORD_SIZE;
+        if ((long) text + buffer.getInt(28) > buffer.capacity())
+            throw new IllegalArgumentException("Arquivo TAC truncado");
+    }
+
+    public static TacImage open(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            return new TacImage(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static TacImage wrap(ByteBuffer buffer) {
+        return new TacImage(buffer);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int startAddr() {
+        return startAddr;
+    }
+
+    @Override
+    public int address(int index) {
+        return startAddr + index;
+    }
+
+    @Override
+    public Opcode op(int index) {
+        return Opcode.of(buffer.get(records + index * RECORD_SIZE));
+    }
+
+    @Override
+    public int result(int index) {
+        return buffer.getInt(records + index * RECORD_SIZE + 4);
+    }
+
+    @Override
+    public int arg1(int index) {
+        return buffer.getInt(records + index * RECORD_SIZE + 8);
+    }
+
+    @Override
+    public int arg2(int index) {
+        return buffer.getInt(records + index * RECORD_SIZE + 12);
+    }
+
+    @Override
+    public int target(int index) {
+        return buffer.getInt(records + index * RECORD_SIZE + 16);
+    }
+
+    @Override
+    public boolean isResolved(int index) {
+        return target(index) >= 0;
+    }
+
+    @Override
+    public Type typeOf(int operand) {
+        int id = Operand.id(operand);
+        switch (Operand.kind(operand)) {
+            case Operand.NAME:
+                return TYPES[buffer.get(symbols + id * SYMBOL_SIZE + 14)];
+            case Operand.TEMP:
+                return TYPES[buffer.get(temps + id * TEMP_SIZE + 4)];
+            case Operand.CONST:
+                return TYPES[buffer.get(constants + id * CONST_SIZE)];
+            default:
+                return Type.VOID;
+        }
+    }
+
+    @Override
+    public String nameOf(int operand) {
+        int id = Operand.id(operand);
+        switch (Operand.kind(operand)) {
+            case Operand.NAME: {
+                int entry = symbols + id * SYMBOL_SIZE;
+                return text(buffer.getInt(entry), buffer.getInt(entry + 4));
+            }
+            case Operand.TEMP: {
+                int copy = buffer.getInt(temps + id * TEMP_SIZE);
+                return copy > 0 ? "t" + copy : "t";
+            }
+            case Operand.CONST: {
+                int entry = constants + id * CONST_SIZE;
+                switch (TYPES[buffer.get(entry)]) {
+                    case INTEGER:
+                        return String.valueOf(buffer.getInt(entry + 4));
+                    case FLOAT:
+                        return String.valueOf(Float.intBitsToFloat(buffer.getInt(entry + 4)));
+                    default:
+                        return "\"" + text(buffer.getInt(entry + 4), buffer.getInt(entry + 8)) + "\"";
+                }
+            }
+            default:
+                return "none";
+        }
+    }
+
+    // Largura e deslocamento na area de dados da variavel de indice id
+    public int widthOf(int id) {
+        return buffer.getShort(symbols + id * SYMBOL_SIZE + 12);
+    }
+
+    public int offsetOf(int id) {
+        return buffer.getInt(symbols + id * SYMBOL_SIZE + 8);
+    }
+
+    private String text(int offset, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(text + offset);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String toString() {
+        return TextListing.render(this);
+    }
+}
@@ -0,0 +1,61 @@
+package generator.output;
+
+import generator.ir.Opcode;
+import generator.ir.Quads;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+// Listagem textual das quadruplas, no formato "endereco<TAB>instrucao"
+public class TextListing {
+
+    private TextListing() {
+    }
+
+    public static String render(Quads code) {
+        StringBuilder codelines = new StringBuilder();
+        write(code, code.firstRetained(), code.size(), codelines);
+        return codelines.toString();
+    }
+
+    public static void write(Quads code, int from, int to, Appendable out) {
+        try {
+            for (int i = from; i < to; i++) {
+                out.append(String.valueOf(code.address(i)))
+                        .append("\t")
+                        .append(line(code, i))
+                        .append("\n");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static String line(Quads code, int i) {
+        Opcode op = code.op(i);
+        switch (op) {
+            case DECL:
+                return code.typeOf(code.result(i)) + " " + code.nameOf(code.result(i));
+            case COPY:
+                return code.nameOf(code.result(i)) + " = " + code.nameOf(code.arg1(i));
+            case NOT:
+            case NEG:
+                return code.nameOf(code.result(i)) + " = " + op.symbol() + code.nameOf(code.arg1(i));
+            case SCAN:
+                return "scan " + code.nameOf(code.result(i));
+            case OUT:
+                return "out " + code.nameOf(code.arg1(i));
+            case IF:
+                return "if " + code.nameOf(code.arg1(i)) + " goto " + label(code, i);
+            case GOTO:
+                return "goto " + label(code, i);
+            default:
+                return code.nameOf(code.result(i)) + " = " + code.nameOf(code.arg1(i))
+                        + " " + op.symbol() + " " + code.nameOf(code.arg2(i));
+        }
+    }
+
+    private static String label(Quads code, int i) {
+        return code.isResolved(i) ? String.valueOf(code.target(i)) : "@@@";
+    }
+}
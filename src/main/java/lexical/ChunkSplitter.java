@@ -0,0 +1,85 @@
+package lexical;
+
+import lexical.source.CharSource;
+
+import java.util.Arrays;
+
+// Pre-varredura que acha quebras de linha seguras para dividir a fonte: fora de comentarios e de literais.
+// Reproduz apenas os estados do automato que atravessam linhas (comentarios e strings).
+final class ChunkSplitter {
+    private static final int NORMAL = 0;
+    private static final int SLASH = 1;         // estado 5
+    private static final int LINE_COMMENT = 2;  // estado 6
+    private static final int BLOCK = 3;         // estado 3
+    private static final int BLOCK_END = 4;     // estado 4
+    private static final int STRING = 5;        // estado 15
+
+    private ChunkSplitter() {
+    }
+
+    // Retorna as posicoes de inicio de cada trecho, seguidas do fim da fonte
+    static int[] split(CharSource source, int chunks) {
+        int from = source.position();
+        int limit = source.limit();
+        int[] bounds = new int[chunks + 1];
+        bounds[0] = from;
+        int count = 1;
+        long step = (limit - from) / chunks;
+        long target = from + step;
+
+        int state = NORMAL;
+        for (int i = from; i < limit && count < chunks; i++) {
+            int c = source.byteAt(i);
+            boolean safe = false;
+            switch (state) {
+                case SLASH:
+                    if (c == '/') {
+                        state = LINE_COMMENT;
+                    } else if (c == '*') {
+                        state = BLOCK;
+                    } else {
+                        // O caractere e relido no estado inicial, como faz o ungetc
+                        state = normal(c);
+                        safe = c == '\n';
+                    }
+                    break;
+                case NORMAL:
+                    state = normal(c);
+                    safe = c == '\n';
+                    break;
+                case LINE_COMMENT:
+                    if (c == '\n') {
+                        state = NORMAL;
+                        safe = true;
+                    }
+                    break;
+                case BLOCK:
+                    if (c == '*' || c == '\n')
+                        state = BLOCK_END;
+                    break;
+                case BLOCK_END:
+                    state = c == '/' ? NORMAL : BLOCK;
+                    break;
+                case STRING:
+                    if (c == '}')
+                        state = NORMAL;
+                    break;
+            }
+            if (safe && i + 1 >= target && i + 1 < limit) {
+                bounds[count++] = i + 1;
+                target = i + 1 + step;
+            }
+        }
+        bounds[count] = limit;
+        return Arrays.copyOf(bounds, count + 1);
+    }
+
+    // Proximo estado a partir do inicial
+    private static int normal(int c) {
+        if (c == '/')
+            return SLASH;
+        if (c == '{')
+            return STRING;
+        return NORMAL;
+    }
+}
@@ -1,13 +1,82 @@
 package lexical;
 
+import lexical.source.CharSource;
+
 public class Lexeme {
 
-    public String token;
     public TokenType type;
+    private String token;
+    private Symbol symbol;
+    private CharSource source;
+    private SymbolPool pool;
+    private int start;
+    private int end;
+
+    public Lexeme() {
+        this.type = TokenType.END_OF_FILE;
+    }
 
     public Lexeme(String token, TokenType type) {
         this.token = token;
         this.type = type;
     }
 
-}
\ No newline at end of file
+    void set(CharSource source, SymbolPool pool, int start, int end, TokenType type) {
+        this.source = source;
+        this.pool = pool;
+        this.start = start;
+        this.end = end;
+        this.type = type;
+        this.token = null;
+        this.symbol = null;
+    }
+
+    // O texto so e materializado quando o sintatico pede por ele
+    public String token() {
+        if (token == null) {
+            if (pool != null && (type == TokenType.ID || type == TokenType.STRING))
+                token = symbol().name();
+            else
+                token = text();
+        }
+        return token;
+    }
+
+    // Identificadores e literais repetidos devolvem sempre o mesmo Symbol
+    public Symbol symbol() {
+        if (symbol == null) {
+            if (pool == null)
+                symbol = new Symbol(token, -1);
+            else if (type == TokenType.STRING && hasNewline())
+                symbol = pool.intern(text());
+            else
+                symbol = pool.intern(source, start, end);
+        }
+        return symbol;
+    }
+
+    private String text() {
+        String text = source.text(start, end);
+        // Quebras de linha dentro de literais sao descartadas
+        if (type == TokenType.STRING && text.indexOf('\n') >= 0)
+            text = text.replace("\n", "");
+        return text;
+    }
+
+    private boolean hasNewline() {
+        for (int i = start; i < end; i++) {
+            if (source.byteAt(i) == '\n')
+                return true;
+        }
+        return false;
+    }
+
+    public int start() {
+        return start;
+    }
+
+    public int end() {
+        return end;
+    }
+
+}
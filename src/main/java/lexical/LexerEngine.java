@@ -0,0 +1,6 @@
+package lexical;
+
+public enum LexerEngine {
+    SWITCH,        // automato escrito a mao em nextToken
+    TABLE          // mesmo automato codificado em TransitionTable
+};
@@ -1,36 +1,217 @@
 package lexical;
 
-import java.io.FileInputStream;
+import lexical.source.CharSource;
+
 import java.io.IOException;
-import java.io.PushbackInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class LexicalAnalysis implements AutoCloseable {
 
+    private static final int RING_CAPACITY = 4096;
+    private static final int MIN_CHUNK = 64 * 1024;
+    private static final TokenType[] TYPES = TokenType.values();
+
     private int line;
-    private final SymbolTable st;
-    private final PushbackInputStream input;
+    private final TokenTable st;
+    private final CharSource input;
+    private final LexerEngine engine;
+    private final SymbolPool symbols;
+
+    // Modo em pipeline: o lexico roda em outra thread e entrega os tokens por uma TokenRing
+    private TokenRing ring;
+    // Modo em paralelo: todos os tokens sao reconhecidos antes do sintatico comecar
+    private TokenBuffer tokens;
+    private int tokenIndex;
+    private int recordLine;
+    private boolean drained;
+    private volatile boolean closed;
+    private volatile String failure;
 
     public LexicalAnalysis(String filename) throws LexicalException {
+        this(open(filename));
+    }
+
+    public LexicalAnalysis(CharSource input) {
+        this(input, new SwitchTokenTable());
+    }
+
+    public LexicalAnalysis(CharSource input, TokenTable st) {
+        this(input, st, LexerEngine.SWITCH);
+    }
+
+    public LexicalAnalysis(CharSource input, TokenTable st, LexerEngine engine) {
+        this(input, st, engine, new SymbolPool());
+    }
+
+    public LexicalAnalysis(CharSource input, TokenTable st, LexerEngine engine, SymbolPool symbols) {
+        this.input = input;
+        this.st = st;
+        this.engine = engine;
+        this.symbols = symbols;
+        line = 1;
+    }
+
+    private static CharSource open(String filename) throws LexicalException {
         try {
-            input = new PushbackInputStream(new FileInputStream(filename));
+            return CharSource.open(filename);
         } catch (Exception e) {
             throw new LexicalException("Unable to open file");
         }
-
-        st = new SymbolTable();
-        line = 1;
     }
 
     public void close() throws IOException {
+        closed = true;
         input.close();
     }
 
+    boolean isClosed() {
+        return closed;
+    }
+
+    public SymbolPool symbols() {
+        return symbols;
+    }
+
     public int getLine() {
-        return this.line;
+        return ring != null || tokens != null ? this.recordLine : this.line;
+    }
+
+    public void startPipeline() {
+        startPipeline(RING_CAPACITY);
+    }
+
+    public void startPipeline(int capacity) {
+        if (ring != null || tokens != null)
+            return;
+        ring = new TokenRing(capacity);
+        recordLine = line;
+        Thread producer = new Thread(this::produce, "lexer");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    private void produce() {
+        Lexeme lex = new Lexeme();
+        try {
+            do {
+                scan(lex);
+                if (!ring.put(lex.type.ordinal(), lex.start(), lex.end(), line, this))
+                    return;
+            } while (lex.type != TokenType.END_OF_FILE);
+        } catch (RuntimeException e) {
+            failure = e.toString();
+            ring.put(-1, 0, 0, line, this);
+        }
     }
 
     public Lexeme nextToken() throws LexicalException {
-        Lexeme lex = new Lexeme("", TokenType.END_OF_FILE);
+        Lexeme lex = new Lexeme();
+        nextToken(lex);
+        return lex;
+    }
+
+    public void tokenizeParallel() throws LexicalException {
+        tokenizeParallel(ForkJoinPool.commonPool());
+    }
+
+    public void tokenizeParallel(ForkJoinPool pool) throws LexicalException {
+        int size = input.limit() - input.position();
+        tokenizeParallel(pool, (int) Math.max(1, Math.min(pool.getParallelism() * 4L, size / MIN_CHUNK)));
+    }
+
+    // Divide a fonte em quebras de linha seguras, reconhece cada trecho no pool e junta os tokens
+    public void tokenizeParallel(ForkJoinPool pool, int chunks) throws LexicalException {
+        if (ring != null || tokens != null)
+            return;
+        int size = input.limit() - input.position();
+        int[] bounds = ChunkSplitter.split(input, chunks);
+
+        List<ForkJoinTask<TokenBuffer>> tasks = new ArrayList<>();
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            CharSource chunk = input.slice(bounds[i], bounds[i + 1]);
+            tasks.add(pool.submit(() -> scanChunk(chunk)));
+        }
+
+        TokenBuffer all = new TokenBuffer(size / 4);
+        int lineOffset = line - 1;
+        try {
+            for (int i = 0; i < tasks.size(); i++) {
+                TokenBuffer chunk = tasks.get(i).join();
+                // Cada trecho termina com seu proprio END_OF_FILE; so o do ultimo e mantido
+                int count = i + 1 < tasks.size() ? chunk.size - 1 : chunk.size;
+                all.append(chunk, count, lineOffset);
+                lineOffset += chunk.lines[chunk.size - 1] - 1;
+            }
+        } catch (RuntimeException e) {
+            throw new LexicalException("Unable to read file: " + e);
+        }
+        recordLine = line;
+        tokens = all;
+    }
+
+    private TokenBuffer scanChunk(CharSource chunk) {
+        LexicalAnalysis chunkLex = new LexicalAnalysis(chunk, st, engine, symbols);
+        TokenBuffer out = new TokenBuffer((chunk.limit() - chunk.position()) / 4);
+        Lexeme lex = new Lexeme();
+        do {
+            chunkLex.scan(lex);
+            out.add(lex.type.ordinal(), lex.start(), lex.end(), chunkLex.line);
+        } while (lex.type != TokenType.END_OF_FILE);
+        return out;
+    }
+
+    // Preenche um lexema reutilizavel com o intervalo [start, end) do token na fonte
+    public void nextToken(Lexeme lex) throws LexicalException {
+        if (tokens != null)
+            nextTokenFromBuffer(lex);
+        else if (ring != null)
+            nextTokenFromRing(lex);
+        else
+            scan(lex);
+    }
+
+    private void nextTokenFromBuffer(Lexeme lex) {
+        // O ultimo token e sempre END_OF_FILE e se repete depois do fim
+        int i = Math.min(tokenIndex, tokens.size - 1);
+        tokenIndex = i + 1;
+        recordLine = tokens.lines[i];
+        lex.set(input, symbols, tokens.starts[i], tokens.ends[i], TYPES[tokens.types[i]]);
+    }
+
+    private void nextTokenFromRing(Lexeme lex) throws LexicalException {
+        // Depois do fim de arquivo o lexico sincrono continua devolvendo END_OF_FILE
+        if (drained) {
+            lex.set(input, symbols, input.limit(), input.limit(), TokenType.END_OF_FILE);
+            return;
+        }
+        ring.take();
+        int type = ring.type();
+        int start = ring.start();
+        int end = ring.end();
+        recordLine = ring.line();
+        ring.release();
+
+        if (type < 0)
+            throw new LexicalException("Unable to read file: " + failure);
+        if (type == TokenType.END_OF_FILE.ordinal())
+            drained = true;
+        lex.set(input, symbols, start, end, TYPES[type]);
+    }
+
+    private void scan(Lexeme lex) {
+        if (engine == LexerEngine.TABLE)
+            nextTokenFromTable(lex);
+        else
+            nextTokenFromSwitch(lex);
+    }
+
+    private void nextTokenFromSwitch(Lexeme lex) {
+        TokenType type = TokenType.END_OF_FILE;
+        int start = input.position();
+        int end = -1;
 
         int state = 1;
         while (state != 200 && state != 201) {
@@ -41,6 +222,7 @@ public class LexicalAnalysis implements AutoCloseable {
                 // state == 200, tipo reconhecido
                 // state == 201, tipo não reconhecido ainda
                 case 1: // Estado inicial
+                    start = input.position() - 1;
                     if(c == ' ' || c == '\t' || c == '\r'){
                     } else if(c=='\n') {
                         line++;
@@ -49,40 +231,32 @@ public class LexicalAnalysis implements AutoCloseable {
                     } else if(c=='/') {
                         state = 5;
                     } else if(Character.isLetter(c)||c=='_') {
-                        lex.token += (char) c;
                         state = 7;
                     } else if(Character.isDigit(c)) {
-                        lex.token += (char) c;
                         state = 8;
                     } else if(c=='=' || c=='>'){
-                        lex.token += (char) c;
                         state = 11;
                     } else if(c=='<'){
-                        lex.token += (char) c;
                         state = 12;
                     } else if(c=='+' || c=='-' || c=='/' || c=='(' || c==')' || c=='.' || c==';' || c=='!' || c==','){
-                        lex.token += (char) c;
                         state = 201;
                     } else if(c=='|') {
-                        lex.token += (char) c;
                         state = 13;
                     } else if(c=='&') {
-                        lex.token += (char) c;
                         state = 14;
                     } else if(c=='{') {
+                        start++;
                         state = 15;
                     } else if(c == -1) { // EOF
-                        lex.type = TokenType.END_OF_FILE;
+                        type = TokenType.END_OF_FILE;
                         state = 200;
                     } else {
-                        lex.token += (char) c;
-                        lex.type = TokenType.INVALID_TOKEN;
+                        type = TokenType.INVALID_TOKEN;
                         state = 200;
                     }
                     break;
                 case 2: // Multiplicação
                     ungetc(c);
-                    lex.token += '*';
                     state = 201;
                     break;
                 case 3: // Comentário de mais de uma linha
@@ -91,6 +265,9 @@ public class LexicalAnalysis implements AutoCloseable {
                     } else if (c == '\n') {
                         line++;
                         state = 4;
+                    } else if (c == -1) {
+                        type = TokenType.UNEXPECTED_EOF;
+                        state = 200;
                     }
                     break;
                 case 4: // Possível final de comentário de mais de uma linha
@@ -107,7 +284,6 @@ public class LexicalAnalysis implements AutoCloseable {
                         state = 3;
                     } else {
                         ungetc(c);
-                        lex.token += '/';
                         state = 201;
                     }
                     break;
@@ -116,92 +292,79 @@ public class LexicalAnalysis implements AutoCloseable {
                         line ++;
                         state = 1;
                     } else if(c == -1) { // EOF
-                        lex.type = TokenType.END_OF_FILE;
+                        type = TokenType.END_OF_FILE;
                         state = 200;
                     }
                     break;
                 case 7: // Identificador ou Palavra Chave
-                    if (Character.isDigit(c) || Character.isLetter(c)){
-                        lex.token += (char) c;
-                    } else {
+                    if (!Character.isDigit(c) && !Character.isLetter(c)){
                         ungetc(c);
                         state = 201;
                     }
                     break;
                 case 8: // Número
-                    if (Character.isDigit(c)){
-                        lex.token += (char) c;
-                    } else if(c=='.') {
-                        lex.token += (char) c;
+                    if(c=='.') {
                         state = 9;
-                    } else {
+                    } else if (!Character.isDigit(c)){
                         ungetc(c);
-                        lex.type = TokenType.INTEGER;
+                        type = TokenType.INTEGER;
                         state = 200;
                     }
                     break;
                 case 9: // Float
                     if (Character.isDigit(c)){
-                        lex.token += (char) c;
                         state = 10;
                     }  else {
                         ungetc(c);
-                        lex.type = TokenType.INVALID_TOKEN;
+                        type = TokenType.INVALID_TOKEN;
                         state = 200;
                     }
                     break;
                 case 10:
-                    if (Character.isDigit(c)){
-                        lex.token += (char) c;
-                    } else {
+                    if (!Character.isDigit(c)){
                         ungetc(c);
-                        lex.type = TokenType.FLOAT;
+                        type = TokenType.FLOAT;
                         state = 200;
                     }
                     break;
                 case 11: // ("=" ou "==") ou (">" ou ">=")
-                    if(c=='='){
-                        lex.token += (char) c;
-                    } else {
+                    if(c!='='){
                         ungetc(c);
-                        state = 200;
                     }
                     state = 201;
                     break;
                 case 12:
-                    if(c=='>' || c=='='){ // ("<" ou "<=" ou "<>")
-                        lex.token += (char) c;
-                    } else {
+                    if(c!='>' && c!='='){ // ("<" ou "<=" ou "<>")
                         ungetc(c);
                     }
                     state = 201;
                     break;
                 case 13:
                     if(c=='|'){ // "||"
-                        lex.token += (char) c;
                         state = 201;
                     } else {
                         ungetc(c);
-                        lex.type = TokenType.INVALID_TOKEN;
+                        type = TokenType.INVALID_TOKEN;
                         state = 200;
                     }
                     break;
                 case 14: // "&&"
                     if(c=='&'){
-                        lex.token += (char) c;
                         state = 201;
                     } else {
                         ungetc(c);
-                        lex.type = TokenType.INVALID_TOKEN;
+                        type = TokenType.INVALID_TOKEN;
                         state = 200;
                     }
                     break;
                 case 15: // String
                     if(c=='}'){
-                        lex.type = TokenType.STRING;
+                        end = input.position() - 1;
+                        type = TokenType.STRING;
+                        state = 200;
+                    } else if(c == -1) {
+                        type = TokenType.UNEXPECTED_EOF;
                         state = 200;
-                    } else if(c!='\n'){
-                        lex.token += (char) c;
                     }
                     break;
                 case 16: // Fim do comentario de multi linhas
@@ -211,26 +374,58 @@ public class LexicalAnalysis implements AutoCloseable {
             }
         }
 
+        if (end < 0)
+            end = input.position();
+        if (state == 200 && (type == TokenType.END_OF_FILE || type == TokenType.UNEXPECTED_EOF))
+            start = end;
         if (state == 201)
-            lex.type = st.find(lex.token);
-        return lex;
+            type = st.find(input, start, end);
+        lex.set(input, symbols, start, end, type);
     }
 
-    private int getc() throws LexicalException {
-        try {
-            return input.read();
-        } catch (Exception e) {
-            throw new LexicalException("Unable to read file");
+    private void nextTokenFromTable(Lexeme lex) {
+        final byte[] classes = TransitionTable.CLASSES;
+        final int[] next = TransitionTable.NEXT;
+        int start = input.position();
+        int end = -1;
+
+        int state = 1;
+        int t;
+        do {
+            int c = input.read();
+            t = next[state * TransitionTable.CLASS_COUNT + classes[c + 1]];
+            state = t & TransitionTable.STATE_MASK;
+            // Dentro de identificadores, numeros, strings e comentarios nenhuma acao e disparada
+            if ((t & TransitionTable.ACTIONS) == 0)
+                continue;
+            if ((t & TransitionTable.MARK) != 0)
+                start = input.position() - 1 + ((t & TransitionTable.MARK_NEXT) >>> 8);
+            if ((t & TransitionTable.CUT) != 0)
+                end = input.position() - 1;
+            if ((t & TransitionTable.PUSHBACK) != 0)
+                input.unread();
+            line += (t & TransitionTable.LINE) >>> 6;
+        } while (state < TransitionTable.ACCEPT);
+
+        if (end < 0)
+            end = input.position();
+        TokenType type;
+        if (state == TransitionTable.LOOKUP) {
+            type = st.find(input, start, end);
+        } else {
+            type = TransitionTable.type(t);
+            if (type == TokenType.END_OF_FILE || type == TokenType.UNEXPECTED_EOF)
+                start = end;
         }
+        lex.set(input, symbols, start, end, type);
     }
 
-    private void ungetc(int c) throws LexicalException {
-        if (c != -1) {
-            try {
-                input.unread(c);
-            } catch (Exception e) {
-                throw new LexicalException("Unable to ungetc");
-            }
-        }
+    private int getc() {
+        return input.read();
+    }
+
+    private void ungetc(int c) {
+        if (c != -1)
+            input.unread();
     }
 }
\ No newline at end of file
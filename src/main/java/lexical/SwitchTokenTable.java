@@ -0,0 +1,87 @@
+package lexical;
+
+import lexical.source.CharSource;
+
+// Tabela fixa de palavras chave e operadores, escolhida por tamanho e primeiro caractere
+public class SwitchTokenTable extends TokenTable {
+
+    @Override
+    public TokenType find(CharSource source, int start, int end) {
+        int c = source.byteAt(start);
+        switch (end - start) {
+            case 1:
+                return single(c);
+            case 2:
+                int c1 = source.byteAt(start + 1);
+                switch (c) {
+                    case '=': return c1 == '=' ? TokenType.EQUALS : TokenType.ID;
+                    case '<': return c1 == '>' ? TokenType.NOT_EQUALS : c1 == '=' ? TokenType.LOWER_EQ : TokenType.ID;
+                    case '>': return c1 == '=' ? TokenType.GREATER_EQ : TokenType.ID;
+                    case '|': return c1 == '|' ? TokenType.OR : TokenType.ID;
+                    case '&': return c1 == '&' ? TokenType.AND : TokenType.ID;
+                    case 'i': return c1 == 'f' ? TokenType.IF : TokenType.ID;
+                    case 'd': return c1 == 'o' ? TokenType.DO : TokenType.ID;
+                }
+                break;
+            case 3:
+                switch (c) {
+                    case 'e': return keyword(source, start, "end", TokenType.END);
+                    case 'i': return keyword(source, start, "int", TokenType.INTEGER_KW);
+                }
+                break;
+            case 4:
+                switch (c) {
+                    case 'e':
+                        return source.byteAt(start + 1) == 'x' ?
+                                keyword(source, start, "exit", TokenType.EXIT) :
+                                keyword(source, start, "else", TokenType.ELSE);
+                    case 't': return keyword(source, start, "then", TokenType.THEN);
+                    case 's': return keyword(source, start, "scan", TokenType.SCAN);
+                }
+                break;
+            case 5:
+                switch (c) {
+                    case 's': return keyword(source, start, "start", TokenType.START);
+                    case 'w': return keyword(source, start, "while", TokenType.WHILE);
+                    case 'p': return keyword(source, start, "print", TokenType.PRINT);
+                    case 'f': return keyword(source, start, "float", TokenType.FLOAT_KW);
+                }
+                break;
+            case 6:
+                if (c == 's')
+                    return keyword(source, start, "string", TokenType.STRING_KW);
+                break;
+        }
+        return TokenType.ID;
+    }
+
+    private static TokenType single(int c) {
+        switch (c) {
+            case '(': return TokenType.OPEN_BRA;
+            case ')': return TokenType.CLOSE_BRA;
+            case '{': return TokenType.OPEN_PAR;
+            case '}': return TokenType.CLOSE_PAR;
+            case ';': return TokenType.SEMICOLON;
+            case ',': return TokenType.COMMA;
+            case '=': return TokenType.ASSIGN;
+            case '.': return TokenType.DOT;
+            case '!': return TokenType.EXCLAMATION;
+            case '>': return TokenType.GREATER;
+            case '<': return TokenType.LOWER;
+            case '+': return TokenType.ADD;
+            case '-': return TokenType.SUB;
+            case '*': return TokenType.MUL;
+            case '/': return TokenType.DIV;
+            default: return TokenType.ID;
+        }
+    }
+
+    // O primeiro caractere ja foi comparado pelo switch
+    private static TokenType keyword(CharSource source, int start, String word, TokenType type) {
+        for (int i = 1; i < word.length(); i++) {
+            if (source.byteAt(start + i) != word.charAt(i))
+                return TokenType.ID;
+        }
+        return type;
+    }
+}
@@ -0,0 +1,25 @@
+package lexical;
+
+// Representante canonico de um identificador ou literal; dois simbolos iguais sao o mesmo objeto
+public final class Symbol {
+    private final String name;
+    private final int id;
+
+    Symbol(String name, int id) {
+        this.name = name;
+        this.id = id;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int id() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,98 @@
+package lexical;
+
+import lexical.source.CharSource;
+
+import java.util.Arrays;
+
+// Tabela de internalizacao da compilacao: cada lexema distinto vira um unico Symbol com id sequencial
+public class SymbolPool {
+    private Symbol[] slots;
+    private int[] hashes;
+    private Symbol[] symbols;
+    private int size;
+
+    public SymbolPool() {
+        this.slots = new Symbol[256];
+        this.hashes = new int[256];
+        this.symbols = new Symbol[128];
+    }
+
+    public Symbol intern(CharSource source, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++)
+            h = 31 * h + (source.byteAt(i) & 0xFF);
+
+        int mask = slots.length - 1;
+        int i = mix(h) & mask;
+        for (Symbol s = slots[i]; s != null; s = slots[i]) {
+            if (hashes[i] == h && matches(s.name(), source, start, end))
+                return s;
+            i = (i + 1) & mask;
+        }
+        return add(i, h, source.text(start, end));
+    }
+
+    public Symbol intern(String name) {
+        int h = name.hashCode();
+        int mask = slots.length - 1;
+        int i = mix(h) & mask;
+        for (Symbol s = slots[i]; s != null; s = slots[i]) {
+            if (hashes[i] == h && s.name().equals(name))
+                return s;
+            i = (i + 1) & mask;
+        }
+        return add(i, h, name);
+    }
+
+    public Symbol get(int id) {
+        return symbols[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private Symbol add(int slot, int hash, String name) {
+        Symbol s = new Symbol(name, size);
+        if (size == symbols.length)
+            symbols = Arrays.copyOf(symbols, size * 2);
+        symbols[size++] = s;
+        slots[slot] = s;
+        hashes[slot] = hash;
+        if (size * 2 > slots.length)
+            rehash();
+        return s;
+    }
+
+    private void rehash() {
+        Symbol[] oldSlots = slots;
+        int[] oldHashes = hashes;
+        slots = new Symbol[oldSlots.length * 2];
+        hashes = new int[oldSlots.length * 2];
+        int mask = slots.length - 1;
+        for (int j = 0; j < oldSlots.length; j++) {
+            if (oldSlots[j] == null)
+                continue;
+            int i = mix(oldHashes[j]) & mask;
+            while (slots[i] != null)
+                i = (i + 1) & mask;
+            slots[i] = oldSlots[j];
+            hashes[i] = oldHashes[j];
+        }
+    }
+
+    private static int mix(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    // Os bytes da fonte sao lidos como ISO-8859-1, entao cada byte corresponde a um char
+    private static boolean matches(String name, CharSource source, int start, int end) {
+        if (name.length() != end - start)
+            return false;
+        for (int i = start; i < end; i++) {
+            if (name.charAt(i - start) != (source.byteAt(i) & 0xFF))
+                return false;
+        }
+        return true;
+    }
+}
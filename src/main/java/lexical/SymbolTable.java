@@ -1,9 +1,11 @@
 package lexical;
 
+import lexical.source.CharSource;
+
 import java.util.HashMap;
 import java.util.Map;
 
-public class SymbolTable {
+public class SymbolTable extends TokenTable {
     private final Map<String, TokenType> st;
 
     public SymbolTable() {
@@ -57,7 +59,11 @@ public class SymbolTable {
     }
 
     public TokenType find(String token) {
-        return this.contains(token) ?
-                st.get(token) : TokenType.ID;
+        return st.getOrDefault(token, TokenType.ID);
+    }
+
+    @Override
+    public TokenType find(CharSource source, int start, int end) {
+        return find(source.text(start, end));
     }
 }
\ No newline at end of file
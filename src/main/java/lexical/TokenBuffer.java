@@ -0,0 +1,49 @@
+package lexical;
+
+import java.util.Arrays;
+
+// Sequencia de tokens ja reconhecidos, guardada em vetores paralelos
+final class TokenBuffer {
+    int size;
+    int[] types;
+    int[] starts;
+    int[] ends;
+    int[] lines;
+
+    TokenBuffer(int capacity) {
+        capacity = Math.max(16, capacity);
+        this.types = new int[capacity];
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+        this.lines = new int[capacity];
+    }
+
+    void add(int type, int start, int end, int line) {
+        if (size == types.length)
+            grow(size * 2);
+        types[size] = type;
+        starts[size] = start;
+        ends[size] = end;
+        lines[size] = line;
+        size++;
+    }
+
+    // Anexa os tokens de outro trecho, deslocando suas linhas
+    void append(TokenBuffer other, int count, int lineOffset) {
+        if (size + count > types.length)
+            grow(Math.max(size + count, size * 2));
+        System.arraycopy(other.types, 0, types, size, count);
+        System.arraycopy(other.starts, 0, starts, size, count);
+        System.arraycopy(other.ends, 0, ends, size, count);
+        for (int i = 0; i < count; i++)
+            lines[size + i] = other.lines[i] + lineOffset;
+        size += count;
+    }
+
+    private void grow(int capacity) {
+        types = Arrays.copyOf(types, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+    }
+}
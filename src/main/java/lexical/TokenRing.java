@@ -0,0 +1,93 @@
+package lexical;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Fila circular sem travas com um unico produtor (thread do lexico) e um unico consumidor (sintatico)
+final class TokenRing {
+    private static final int SPINS = 100;
+    private static final int YIELDS = 200;
+
+    private final int mask;
+    private final int[] types;
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] lines;
+
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private long cachedHead;    // so o produtor acessa
+    private long cachedTail;    // so o consumidor acessa
+    private long readIndex;     // registro entregue pelo ultimo take()
+
+    TokenRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.types = new int[size];
+        this.starts = new int[size];
+        this.ends = new int[size];
+        this.lines = new int[size];
+    }
+
+    // Retorna false se o consumidor desistiu enquanto a fila estava cheia
+    boolean put(int type, int start, int end, int line, LexicalAnalysis owner) {
+        long t = tail.get();
+        int waits = 0;
+        while (t - cachedHead > mask) {
+            cachedHead = head.get();
+            if (t - cachedHead > mask) {
+                if (owner.isClosed())
+                    return false;
+                backoff(waits++);
+            }
+        }
+        int slot = (int) t & mask;
+        types[slot] = type;
+        starts[slot] = start;
+        ends[slot] = end;
+        lines[slot] = line;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    // Espera o proximo registro; seus campos ficam acessiveis ate o proximo take()
+    void take() {
+        long h = head.get();
+        int waits = 0;
+        while (h >= cachedTail) {
+            cachedTail = tail.get();
+            if (h >= cachedTail)
+                backoff(waits++);
+        }
+        readIndex = h;
+    }
+
+    void release() {
+        head.lazySet(readIndex + 1);
+    }
+
+    int type() {
+        return types[(int) readIndex & mask];
+    }
+
+    int start() {
+        return starts[(int) readIndex & mask];
+    }
+
+    int end() {
+        return ends[(int) readIndex & mask];
+    }
+
+    int line() {
+        return lines[(int) readIndex & mask];
+    }
+
+    private static void backoff(int waits) {
+        if (waits < SPINS)
+            Thread.onSpinWait();
+        else if (waits < SPINS + YIELDS)
+            Thread.yield();
+        else
+            LockSupport.parkNanos(10_000);
+    }
+}
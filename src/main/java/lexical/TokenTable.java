@@ -0,0 +1,10 @@
+package lexical;
+
+import lexical.source.CharSource;
+
+public abstract class TokenTable {
+
+    // Classifica o intervalo [start, end) da fonte como palavra chave, operador ou identificador
+    public abstract TokenType find(CharSource source, int start, int end);
+
+}
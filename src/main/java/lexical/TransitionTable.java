@@ -0,0 +1,169 @@
+package lexical;
+
+// Automato de LexicalAnalysis.nextToken em forma de tabela: classe de caractere x estado -> transicao.
+// Os estados mantem a numeracao do automato escrito a mao (1 a 15; o 16 nunca e alcancado).
+final class TransitionTable {
+
+    // Classes de caractere, indexadas por c + 1 para que EOF (-1) caia na posicao 0
+    static final int EOF = 0;
+    static final int BLANK = 1;
+    static final int NEWLINE = 2;
+    static final int STAR = 3;
+    static final int SLASH = 4;
+    static final int LETTER = 5;
+    static final int UNDERSCORE = 6;
+    static final int DIGIT = 7;
+    static final int DOT = 8;
+    static final int EQUAL = 9;
+    static final int GREATER = 10;
+    static final int LOWER = 11;
+    static final int PUNCT = 12;
+    static final int PIPE = 13;
+    static final int AMPERSAND = 14;
+    static final int OPEN_STRING = 15;
+    static final int CLOSE_STRING = 16;
+    static final int OTHER = 17;
+    static final int CLASS_COUNT = 18;
+
+    // Estados finais: tipo ja reconhecido (200) ou consulta a TokenTable (201)
+    static final int ACCEPT = 17;
+    static final int LOOKUP = 18;
+    static final int STATE_MASK = 0x1F;
+
+    // Acoes de cada transicao
+    static final int PUSHBACK = 1 << 5;    // devolve o caractere lido
+    static final int LINE = 1 << 6;        // conta uma quebra de linha
+    static final int MARK = 1 << 7;        // o token comeca no caractere lido
+    static final int MARK_NEXT = 1 << 8;   // o token comeca depois do caractere lido
+    static final int CUT = 1 << 9;         // o token termina antes do caractere lido
+    static final int ACTIONS = PUSHBACK | LINE | MARK | MARK_NEXT | CUT;
+    static final int TYPE_SHIFT = 16;
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    static final byte[] CLASSES = new byte[257];
+    static final int[] NEXT = new int[ACCEPT * CLASS_COUNT];
+
+    private TransitionTable() {
+    }
+
+    static {
+        for (int c = 0; c < 256; c++)
+            CLASSES[c + 1] = (byte) classify(c);
+        CLASSES[0] = EOF;
+
+        // 1: Estado inicial
+        fill(1, 1, MARK);
+        on(1, NEWLINE, 1, MARK | LINE);
+        on(1, STAR, 2, MARK);
+        on(1, SLASH, 5, MARK);
+        on(1, LETTER, 7, MARK);
+        on(1, UNDERSCORE, 7, MARK);
+        on(1, DIGIT, 8, MARK);
+        on(1, EQUAL, 11, MARK);
+        on(1, GREATER, 11, MARK);
+        on(1, LOWER, 12, MARK);
+        on(1, PUNCT, LOOKUP, MARK);
+        on(1, DOT, LOOKUP, MARK);
+        on(1, PIPE, 13, MARK);
+        on(1, AMPERSAND, 14, MARK);
+        on(1, OPEN_STRING, 15, MARK | MARK_NEXT);
+        on(1, CLOSE_STRING, accept(TokenType.INVALID_TOKEN), MARK);
+        on(1, OTHER, accept(TokenType.INVALID_TOKEN), MARK);
+        on(1, EOF, accept(TokenType.END_OF_FILE), MARK);
+
+        // 2: Multiplicação
+        fill(2, LOOKUP, PUSHBACK);
+
+        // 3 e 4: Comentário de mais de uma linha e seu possível final
+        fill(3, 3, 0);
+        on(3, STAR, 4, 0);
+        on(3, NEWLINE, 4, LINE);
+        on(3, EOF, accept(TokenType.UNEXPECTED_EOF), 0);
+        fill(4, 3, 0);
+        on(4, SLASH, 1, 0);
+        on(4, EOF, accept(TokenType.UNEXPECTED_EOF), 0);
+
+        // 5: Possível comentário ou divisão
+        fill(5, LOOKUP, PUSHBACK);
+        on(5, SLASH, 6, 0);
+        on(5, STAR, 3, 0);
+
+        // 6: Comentário normal
+        fill(6, 6, 0);
+        on(6, NEWLINE, 1, LINE);
+        on(6, EOF, accept(TokenType.END_OF_FILE), 0);
+
+        // 7: Identificador ou Palavra Chave
+        fill(7, LOOKUP, PUSHBACK);
+        on(7, LETTER, 7, 0);
+        on(7, DIGIT, 7, 0);
+
+        // 8, 9 e 10: Número inteiro ou float
+        fill(8, accept(TokenType.INTEGER), PUSHBACK);
+        on(8, DIGIT, 8, 0);
+        on(8, DOT, 9, 0);
+        fill(9, accept(TokenType.INVALID_TOKEN), PUSHBACK);
+        on(9, DIGIT, 10, 0);
+        fill(10, accept(TokenType.FLOAT), PUSHBACK);
+        on(10, DIGIT, 10, 0);
+
+        // 11 e 12: ("=" ou "==") ou (">" ou ">=") e ("<" ou "<=" ou "<>")
+        fill(11, LOOKUP, PUSHBACK);
+        on(11, EQUAL, LOOKUP, 0);
+        fill(12, LOOKUP, PUSHBACK);
+        on(12, GREATER, LOOKUP, 0);
+        on(12, EQUAL, LOOKUP, 0);
+
+        // 13 e 14: "||" e "&&"
+        fill(13, accept(TokenType.INVALID_TOKEN), PUSHBACK);
+        on(13, PIPE, LOOKUP, 0);
+        fill(14, accept(TokenType.INVALID_TOKEN), PUSHBACK);
+        on(14, AMPERSAND, LOOKUP, 0);
+
+        // 15: String
+        fill(15, 15, 0);
+        on(15, CLOSE_STRING, accept(TokenType.STRING), CUT);
+        on(15, EOF, accept(TokenType.UNEXPECTED_EOF), 0);
+    }
+
+    static TokenType type(int transition) {
+        return TYPES[transition >>> TYPE_SHIFT];
+    }
+
+    private static int classify(int c) {
+        if (c == ' ' || c == '\t' || c == '\r') return BLANK;
+        if (c == '\n') return NEWLINE;
+        if (c == '*') return STAR;
+        if (c == '/') return SLASH;
+        if (c == '_') return UNDERSCORE;
+        if (c == '.') return DOT;
+        if (c == '=') return EQUAL;
+        if (c == '>') return GREATER;
+        if (c == '<') return LOWER;
+        if (c == '|') return PIPE;
+        if (c == '&') return AMPERSAND;
+        if (c == '{') return OPEN_STRING;
+        if (c == '}') return CLOSE_STRING;
+        if (c == '+' || c == '-' || c == '(' || c == ')' || c == ';' || c == '!' || c == ',') return PUNCT;
+        if (Character.isDigit(c)) return DIGIT;
+        if (Character.isLetter(c)) return LETTER;
+        return OTHER;
+    }
+
+    private static int accept(TokenType type) {
+        return ACCEPT | type.ordinal() << TYPE_SHIFT;
+    }
+
+    private static void fill(int state, int next, int actions) {
+        for (int cls = 0; cls < CLASS_COUNT; cls++)
+            on(state, cls, next, actions);
+    }
+
+    private static void on(int state, int cls, int next, int actions) {
+        // EOF nao avanca a fonte, entao nunca e devolvido
+        if (cls == EOF)
+            actions &= ~PUSHBACK;
+        NEXT[state * CLASS_COUNT + cls] = next | actions;
+    }
+}
@@ -0,0 +1,38 @@
+package lexical.source;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+public class BufferedCharSource extends CharSource {
+    private final byte[] buffer;
+
+    public BufferedCharSource(String filename) throws IOException {
+        this(Files.readAllBytes(Paths.get(filename)));
+    }
+
+    public BufferedCharSource(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    private BufferedCharSource(byte[] buffer, int start, int end) {
+        super(start, end);
+        this.buffer = buffer;
+    }
+
+    @Override
+    public byte byteAt(int index) {
+        return buffer[index];
+    }
+
+    @Override
+    public String text(int start, int end) {
+        return new String(buffer, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public CharSource slice(int start, int end) {
+        return new BufferedCharSource(buffer, start, end);
+    }
+}
@@ -0,0 +1,52 @@
+package lexical.source;
+
+import java.io.File;
+import java.io.IOException;
+
+public abstract class CharSource implements AutoCloseable {
+    // Arquivos a partir deste tamanho sao mapeados em memoria em vez de copiados para o heap
+    public static final long MAP_THRESHOLD = 1 << 20;
+
+    protected int pos;
+    protected final int limit;
+
+    protected CharSource(int pos, int limit) {
+        this.pos = pos;
+        this.limit = limit;
+    }
+
+    public static CharSource open(String filename) throws IOException {
+        if (new File(filename).length() >= MAP_THRESHOLD)
+            return new MappedCharSource(filename);
+        return new BufferedCharSource(filename);
+    }
+
+    public final int read() {
+        if (pos < limit)
+            return byteAt(pos++) & 0xFF;
+        return -1;
+    }
+
+    public final void unread() {
+        pos--;
+    }
+
+    public final int position() {
+        return pos;
+    }
+
+    public final int limit() {
+        return limit;
+    }
+
+    public abstract byte byteAt(int index);
+
+    public abstract String text(int start, int end);
+
+    // Visao de [start, end) que compartilha o mesmo armazenamento; as posicoes continuam absolutas
+    public abstract CharSource slice(int start, int end);
+
+    @Override
+    public void close() throws IOException {
+    }
+}
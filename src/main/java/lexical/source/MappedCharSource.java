@@ -0,0 +1,52 @@
+package lexical.source;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class MappedCharSource extends CharSource {
+    private final MappedByteBuffer buffer;
+
+    public MappedCharSource(String filename) throws IOException {
+        this(map(filename));
+    }
+
+    private MappedCharSource(MappedByteBuffer buffer) {
+        this(buffer, 0, buffer.limit());
+    }
+
+    private MappedCharSource(MappedByteBuffer buffer, int start, int end) {
+        super(start, end);
+        this.buffer = buffer;
+    }
+
+    private static MappedByteBuffer map(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("File too large to map: " + filename);
+            // O mapeamento continua valido depois que o canal e fechado
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    @Override
+    public byte byteAt(int index) {
+        return buffer.get(index);
+    }
+
+    @Override
+    public String text(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.duplicate().position(start).get(bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public CharSource slice(int start, int end) {
+        return new MappedCharSource(buffer, start, end);
+    }
+}
@@ -2,17 +2,22 @@ package syntatic;
 
 import generator.Code;
 import generator.addresses.*;
+import generator.ir.Opcode;
+import generator.output.Format;
+import generator.output.JsonListing;
+import generator.opt.Optimizer;
 import lexical.Lexeme;
 import lexical.LexicalAnalysis;
 import lexical.LexicalException;
+import lexical.Symbol;
 import lexical.TokenType;
 import generator.CurrentSymbolTable;
 import semantic.SemanticException;
 import generator.Type;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -20,57 +25,120 @@ public class SyntaticAnalysis {
 
     private final LexicalAnalysis lex;
     private Lexeme current;
+    private Lexeme previous;
 
     private final CurrentSymbolTable top;
     private final Code code;
 
+    private final boolean streaming;
+    private final Format format;
+    private Optimizer optimizer;
+    private boolean jumpingCode;
+    private int conditionDepth;
+
     private final List<Integer> errorList;
     private int probErrorLine;
 
     public SyntaticAnalysis(LexicalAnalysis lex) throws LexicalException {
+        this(lex, null);
+    }
+
+    // Com stream, a listagem e escrita enquanto o programa e analisado
+    public SyntaticAnalysis(LexicalAnalysis lex, Writer stream) throws LexicalException {
+        this(lex, stream, Format.TEXT);
+    }
+
+    // Em JSON a listagem sai inteira no fim; stream so se aplica ao texto
+    public SyntaticAnalysis(LexicalAnalysis lex, Writer stream, Format format) throws LexicalException {
+        if (stream != null && format != Format.TEXT)
+            throw new IllegalArgumentException("O streaming só se aplica à listagem em texto");
         this.lex = lex;
+        this.format = format;
         this.top = new CurrentSymbolTable();
-        this.code = new Code();
+        this.code = new Code(top);
+        this.streaming = stream != null;
+        if (streaming)
+            code.streamTo(stream);
 
         this.errorList = new ArrayList<>();
-        this.current = lex.nextToken();
+        this.current = new Lexeme();
+        this.previous = new Lexeme();
+        lex.nextToken(current);
     }
 
+    // Os dois lexemas se alternam: o consumido continua valido ate o proximo advance()
     private void advance() throws LexicalException {
-        current = lex.nextToken();
+        Lexeme food = current;
+        current = previous;
+        previous = food;
+        lex.nextToken(current);
     }
 
-    private String eat(TokenType type) throws LexicalException {
+    private Lexeme eat(TokenType type) throws LexicalException {
         Lexeme food = current;
         if (type == food.type) {
-            current = lex.nextToken();
+            advance();
         } else {
             showLexicalOrSyntaticError();
         }
-        return food.token;
+        return food;
     }
 
     private void showLexicalOrSyntaticError() {
+        code.flush();
         System.out.printf("%02d: ", lex.getLine());
 
         switch (current.type) {
             case INVALID_TOKEN:
-                System.out.printf("Lexema inválido [%s]\n", current.token);
+                System.out.printf("Lexema inválido [%s]\n", current.token());
                 break;
             case UNEXPECTED_EOF:
             case END_OF_FILE:
                 System.out.printf("Fim de arquivo inesperado\n");
                 break;
             default:
-                System.out.printf("Lexema não esperado [%s]\n", current.token);
+                System.out.printf("Lexema não esperado [%s]\n", current.token());
                 break;
         }
         System.exit(1);
     }
 
-    public void start() throws Exception{
+    // Otimizacoes aplicadas ao codigo antes da listagem, mesmo com erro semantico
+    // As otimizacoes reescrevem o codigo inteiro, que o streaming ja descartou em parte
+    public void setOptimizer(Optimizer optimizer) {
+        if (streaming && optimizer != null)
+            throw new IllegalStateException("As otimizações não podem ser usadas com streaming");
+        this.optimizer = optimizer;
+    }
+
+    // Em codigo de desvio, && e || das condicoes de if/while viram saltos com curto-circuito
+    public void setJumpingCode(boolean jumpingCode) {
+        this.jumpingCode = jumpingCode;
+    }
+
+    public Code code() {
+        return code;
+    }
+
+    // Analisa o programa e gera o codigo, sem escrever a listagem
+    public Type compile() throws Exception {
         Type type = procProgram();
-        System.out.println(code.toString());
+        if (optimizer != null)
+            optimizer.run(code);
+        return type;
+    }
+
+    public void start() throws Exception{
+        Type type = compile();
+        if (format == Format.JSON) {
+            JsonListing.write(code, System.out);
+            System.out.println();
+        } else if (streaming) {
+            code.finish();
+            System.out.println();
+        } else {
+            System.out.println(code.toString());
+        }
         eat(TokenType.END_OF_FILE);
         if(type == Type.ERROR) {
             StringBuilder sb = new StringBuilder();
@@ -118,22 +186,23 @@ public class SyntaticAnalysis {
     //decl ::= type ident-list ";"
     private Type procDecl() throws LexicalException{
         Type type = procType();
-        List<String> idList = procIdList();
+        List<Symbol> idList = procIdList();
 
         Type typeL = Type.VOID;
-        for (String id:idList) {
-            if(!top.put(new NameAddress(id,type)))
+        for (Symbol id:idList) {
+            NameAddress addr = new NameAddress(id,type);
+            if(!top.put(addr))
                 typeL = Type.ERROR;
             else
-                code.emit(type.toString()+" "+id);
+                code.emitDecl(addr);
         }
         eat(TokenType.SEMICOLON);
         return typeL;
     }
 
     //ident-list ::= identifier {"," identifier}
-    private List<String> procIdList() throws LexicalException{
-        List<String> idList = new ArrayList<>();
+    private List<Symbol> procIdList() throws LexicalException{
+        List<Symbol> idList = new ArrayList<>();
         idList.add(procId());
         while(current.type == TokenType.COMMA){
             advance();
@@ -216,7 +285,7 @@ public class SyntaticAnalysis {
 
     //assign-stmt ::= identifier "=" simple_expr
     private Expression procAssign() throws LexicalException{
-        String id = procId();
+        Symbol id = procId();
         eat(TokenType.ASSIGN);
         Expression expr = procSimpleExpr();
         Type type = expr.type();
@@ -224,7 +293,7 @@ public class SyntaticAnalysis {
         NameAddress addr = top.get(id);
         Expression assExpr;
         if(type == addr.type()){
-            code.emit(addr.value()+" = "+expr.addr());
+            code.emit(Opcode.COPY, addr, expr.address());
             assExpr = new Expression(false);
         }
         else
@@ -237,12 +306,11 @@ public class SyntaticAnalysis {
     private Expression procIf() throws Exception{
         eat(TokenType.IF);
 
-        Expression boolExpr = procCond();
+        Expression boolExpr = jump(procCond());
         Type boolType = boolExpr.type();
 
-        int m1 = code.nextInst();
-        code.emit("if "+boolExpr.addr()+" goto @@@","@@@");
-        code.emit("goto @@@","@@@");
+        int truelist = boolExpr.getTruelist();
+        int falselist = boolExpr.getFalselist();
         eat(TokenType.THEN);
 
         int m2 = code.nextInst();
@@ -255,16 +323,14 @@ public class SyntaticAnalysis {
             int m3 = code.nextInst();
             Expression ifExpr = new Expression(!(boolType == Type.INTEGER && listType == Type.VOID));
 
-            Integer[] truelist = {m1};
-            Integer[] falselist = {m1+1};
-            code.backpatch(Arrays.asList(truelist),m2);
-            code.backpatch(Arrays.asList(falselist),m3);
+            code.backpatch(truelist,m2);
+            code.backpatch(falselist,m3);
             return ifExpr;
         } else {
             eat(TokenType.ELSE);
 
+            int endlist = code.emitGoto();
             int m3 = code.nextInst();
-            code.emit("goto @@@","@@@");
             Expression elseExpr = procStmtList();
             Type elseType = elseExpr.type();
             Expression ifExpr = new Expression(!(boolType == Type.INTEGER && listType == Type.VOID && elseType == Type.VOID));
@@ -272,12 +338,9 @@ public class SyntaticAnalysis {
             int m4 = code.nextInst();
             eat(TokenType.END);
 
-            Integer[] iflist = {m1};
-            Integer[] elselist = {m1+1};
-            Integer[] endlist = {m3};
-            code.backpatch(Arrays.asList(iflist),m2);
-            code.backpatch(Arrays.asList(elselist),m3+1);
-            code.backpatch(Arrays.asList(endlist),m4);
+            code.backpatch(truelist,m2);
+            code.backpatch(falselist,m3);
+            code.backpatch(endlist,m4);
 
             return ifExpr;
         }
@@ -285,7 +348,39 @@ public class SyntaticAnalysis {
 
     //condition ::= expression
     private Expression procCond() throws  LexicalException{
-        return procExpr();
+        conditionDepth++;
+        try {
+            return procExpr();
+        } finally {
+            conditionDepth--;
+        }
+    }
+
+    private boolean jumping() {
+        return jumpingCode && conditionDepth > 0;
+    }
+
+    // Converte para codigo de desvio: "if x goto _" na truelist e "goto _" na falselist
+    private Expression jump(Expression expr) {
+        if (expr.isJumping())
+            return expr;
+        int truelist = code.emitIf(expr.address());
+        int falselist = code.emitGoto();
+        return new Expression(expr.type(), truelist, falselist);
+    }
+
+    // Materializa uma expressao em codigo de desvio num temporario 0/1 quando ela e usada como valor
+    private Expression value(Expression expr) {
+        if (!expr.isJumping())
+            return expr;
+        Address temp = code.newTemp(expr.type());
+        code.backpatch(expr.getTruelist(), code.nextInst());
+        code.emit(Opcode.COPY, temp, new ConstAddress(1));
+        int exit = code.emitGoto();
+        code.backpatch(expr.getFalselist(), code.nextInst());
+        code.emit(Opcode.COPY, temp, new ConstAddress(0));
+        code.backpatch(exit, code.nextInst());
+        return new Expression(temp);
     }
 
     // while-stmt ::= do stmt-list stmt-sufix
@@ -301,7 +396,6 @@ public class SyntaticAnalysis {
         int m2 = code.nextInst();
 
         Expression whileExpr = new Expression(!(actType == Type.VOID && boolType == Type.VOID));
-        whileExpr.addToNextList(boolExpr.getFalselist());
         code.backpatch(boolExpr.getTruelist(),m1);
         code.backpatch(boolExpr.getFalselist(),m2);
         return whileExpr;
@@ -310,18 +404,13 @@ public class SyntaticAnalysis {
     //stmt-sufix ::= while condition end
     private Expression procSufix() throws Exception{
         eat(TokenType.WHILE);
-        Expression boolExpr = procCond();
+        Expression boolExpr = jump(procCond());
         Type type = boolExpr.type();
-        int m = code.nextInst();
         eat(TokenType.END);
 
         Expression whileExpr = new Expression(type != Type.INTEGER);
-        int[] truelist = {m};
-        int[] falselist = {m+1};
-        whileExpr.addToTrueList(truelist);
-        whileExpr.addToFalseList(falselist);
-        code.emit("if "+boolExpr.addr()+" goto @@@","@@@");
-        code.emit("goto @@@", "@@@");
+        whileExpr.setTruelist(boolExpr.getTruelist());
+        whileExpr.setFalselist(boolExpr.getFalselist());
         return whileExpr;
     }
 
@@ -329,12 +418,13 @@ public class SyntaticAnalysis {
     private Expression procRead() throws LexicalException{
         eat(TokenType.SCAN);
         eat(TokenType.OPEN_BRA);
-        String id = procId();
+        Symbol id = procId();
         eat(TokenType.CLOSE_BRA);
 
         Expression expr;
-        if(top.contains(id)){
-            code.emit("scan "+id);
+        NameAddress addr = top.get(id);
+        if(addr != null){
+            code.emitScan(addr);
             expr = new Expression(false);
         }
         else
@@ -350,7 +440,7 @@ public class SyntaticAnalysis {
         Type type = expr.type();
 
         if((type!=Type.ERROR)) {
-            code.emit("out " + expr.addr());
+            code.emitOut(expr.address());
             expr = new Expression(false);
         }
         else{
@@ -381,28 +471,29 @@ public class SyntaticAnalysis {
                 current.type == TokenType.LOWER_EQ ||
                 current.type == TokenType.NOT_EQUALS){
             String op = procRelOp();
-            Expression expr2 = procSimpleExpr();
+            expr1 = value(expr1);
+            Expression expr2 = value(procSimpleExpr());
             Type type2 = expr2.type();
 
             Address newAddr;
             if ("==".equals(op)) {
                 if(((type1==Type.INTEGER || type1==Type.FLOAT) && (type2==Type.INTEGER || type2==Type.FLOAT)) || (type1==Type.STRING && type2==Type.STRING))
-                    newAddr = new TempAddress(Type.INTEGER);
+                    newAddr = code.newTemp(Type.INTEGER);
                 else
-                    newAddr = new TempAddress(Type.ERROR);
+                    newAddr = code.newTemp(Type.ERROR);
 
                 Expression eqExpr = new Expression(newAddr);
-                code.emit(eqExpr.addr()+" = "+expr1.addr()+" == "+expr2.addr());
+                code.emit(Opcode.EQ, eqExpr.address(), expr1.address(), expr2.address());
                 expr1 = eqExpr;
                 type1 = eqExpr.type();
             } else {
                 if((type1==Type.INTEGER || type1==Type.FLOAT) && (type2==Type.INTEGER || type2==Type.FLOAT))
-                    newAddr = new TempAddress(Type.INTEGER);
+                    newAddr = code.newTemp(Type.INTEGER);
                 else
-                    newAddr = new TempAddress(Type.ERROR);
+                    newAddr = code.newTemp(Type.ERROR);
 
                 Expression finalExpr = new Expression(newAddr);
-                code.emit(finalExpr.addr()+" = "+expr1.addr()+" "+op+" "+expr2.addr());
+                code.emit(Opcode.fromSymbol(op), finalExpr.address(), expr1.address(), expr2.address());
                 expr1 = finalExpr;
                 type1 = finalExpr.type();
             }
@@ -418,19 +509,25 @@ public class SyntaticAnalysis {
 
         while(current.type == TokenType.ADD || current.type == TokenType.SUB || current.type == TokenType.OR){
             String op = procAddOp();
-            Expression expr2 = procSimpleExpr();
+            if ("||".equals(op) && jumping()) {
+                expr1 = procOr(expr1);
+                type1 = expr1.type();
+                continue;
+            }
+            expr1 = value(expr1);
+            Expression expr2 = value(procSimpleExpr());
             Type type2 = expr2.type();
 
             Address newAddr;
             switch (op) {
                 case "||":
                     if (type1 == Type.INTEGER && type2 == Type.INTEGER)
-                        newAddr = new TempAddress(Type.INTEGER);
+                        newAddr = code.newTemp(Type.INTEGER);
                     else
-                        newAddr = new TempAddress(Type.ERROR);
+                        newAddr = code.newTemp(Type.ERROR);
 
                     Expression orExpr = new Expression(newAddr);
-                    code.emit(orExpr.addr() + " = " + expr1.addr() + " || " + expr2.addr());
+                    code.emit(Opcode.OR, orExpr.address(), expr1.address(), expr2.address());
                     expr1 = orExpr;
                     type1 = orExpr.type();
 
@@ -438,25 +535,25 @@ public class SyntaticAnalysis {
                 case "+":
                     if ((type1 == Type.INTEGER || type1 == Type.FLOAT) && (type2 == Type.INTEGER || type2 == Type.FLOAT)) {
                         if (type1 == Type.INTEGER && type2 == Type.INTEGER)
-                            newAddr = new TempAddress(Type.INTEGER);
+                            newAddr = code.newTemp(Type.INTEGER);
                         else
-                            newAddr = new TempAddress(Type.FLOAT);
+                            newAddr = code.newTemp(Type.FLOAT);
 
                         Expression addExpr = new Expression(newAddr);
-                        code.emit(addExpr.addr() + " = " + expr1.addr() + " + " + expr2.addr());
+                        code.emit(Opcode.ADD, addExpr.address(), expr1.address(), expr2.address());
                         expr1 = addExpr;
                         type1 = addExpr.type();
                     } else if (type1 == Type.STRING && type2 == Type.STRING) {
-                        newAddr = new TempAddress(Type.STRING);
+                        newAddr = code.newTemp(Type.STRING);
                         Expression addExpr = new Expression(newAddr);
-                        code.emit(addExpr.addr() + " = " + expr1.addr() + " + " + expr2.addr());
+                        code.emit(Opcode.ADD, addExpr.address(), expr1.address(), expr2.address());
                         expr1 = addExpr;
                         type1 = addExpr.type();
                     } else {
-                        newAddr = new TempAddress(Type.ERROR);
+                        newAddr = code.newTemp(Type.ERROR);
 
                         Expression errExpr = new Expression(newAddr);
-                        code.emit(errExpr.addr() + " = " + expr1.addr() + " + " + expr2.addr());
+                        code.emit(Opcode.ADD, errExpr.address(), expr1.address(), expr2.address());
                         expr1 = errExpr;
                         type1 = errExpr.type();
                     }
@@ -464,19 +561,19 @@ public class SyntaticAnalysis {
                 case "-":
                     if ((type1 == Type.INTEGER || type1 == Type.FLOAT) && (type2 == Type.INTEGER || type2 == Type.FLOAT)) {
                         if (type1 == Type.INTEGER && type2 == Type.INTEGER)
-                            newAddr = new TempAddress(Type.INTEGER);
+                            newAddr = code.newTemp(Type.INTEGER);
                         else
-                            newAddr = new TempAddress(Type.FLOAT);
+                            newAddr = code.newTemp(Type.FLOAT);
 
                         Expression subExpr = new Expression(newAddr);
-                        code.emit(subExpr.addr() + " = " + expr1.addr() + " -" + expr2.addr());
+                        code.emit(Opcode.SUB, subExpr.address(), expr1.address(), expr2.address());
                         expr1 = subExpr;
                         type1 = subExpr.type();
                     } else {
-                        newAddr = new TempAddress(Type.ERROR);
+                        newAddr = code.newTemp(Type.ERROR);
 
                         Expression errExpr = new Expression(newAddr);
-                        code.emit(errExpr.addr() + " = " + expr1.addr() + " - " + expr2.addr());
+                        code.emit(Opcode.SUB, errExpr.address(), expr1.address(), expr2.address());
                         expr1 = errExpr;
                         type1 = errExpr.type();
                     }
@@ -486,6 +583,26 @@ public class SyntaticAnalysis {
         return expr1;
     }
 
+    // B1 || B2: se B1 for falso avalia B2; se for verdadeiro, B2 e pulado
+    private Expression procOr(Expression expr1) throws LexicalException {
+        Expression left = jump(expr1);
+        int m = code.nextInst();
+        Expression right = jump(procSimpleExpr());
+        code.backpatch(left.getFalselist(), m);
+        Type type = left.type() == Type.INTEGER && right.type() == Type.INTEGER ? Type.INTEGER : Type.ERROR;
+        return new Expression(type, code.merge(left.getTruelist(), right.getTruelist()), right.getFalselist());
+    }
+
+    // B1 && B2: se B1 for verdadeiro avalia B2; se for falso, B2 e pulado
+    private Expression procAnd(Expression expr1) throws LexicalException {
+        Expression left = jump(expr1);
+        int m = code.nextInst();
+        Expression right = jump(procTerm());
+        code.backpatch(left.getTruelist(), m);
+        Type type = left.type() == Type.INTEGER && right.type() == Type.INTEGER ? Type.INTEGER : Type.ERROR;
+        return new Expression(type, right.getTruelist(), code.merge(left.getFalselist(), right.getFalselist()));
+    }
+
     //term ::= factor-a | term mulop factor-a
     private Expression procTerm() throws LexicalException{
         Expression expr1 = procFactorAct();
@@ -493,57 +610,63 @@ public class SyntaticAnalysis {
 
         while(current.type == TokenType.MUL || current.type == TokenType.DIV || current.type == TokenType.AND){
             String op = procMulop();
-            Expression expr2 = procTerm();
+            if ("&&".equals(op) && jumping()) {
+                expr1 = procAnd(expr1);
+                type1 = expr1.type();
+                continue;
+            }
+            expr1 = value(expr1);
+            Expression expr2 = value(procTerm());
             Type type2 = expr2.type();
 
             Address newAddr;
             if("&&".equals(op)){
                 if(type1==Type.INTEGER && type2==Type.INTEGER)
-                    newAddr = new TempAddress(Type.INTEGER);
+                    newAddr = code.newTemp(Type.INTEGER);
                 else
-                    newAddr = new TempAddress(Type.ERROR);
+                    newAddr = code.newTemp(Type.ERROR);
 
                 Expression andExpr = new Expression(newAddr);
-                code.emit(andExpr.addr()+" = "+expr1.addr()+" && "+expr2.addr());
+                code.emit(Opcode.AND, andExpr.address(), expr1.address(), expr2.address());
                 expr1 = andExpr;
                 type1 = andExpr.type();
             } else if("*".equals(op)){
                 if((type1==Type.INTEGER || type1==Type.FLOAT) && (type2==Type.INTEGER || type2==Type.FLOAT)){
                     if(type1==Type.INTEGER && type2==Type.INTEGER)
-                        newAddr = new TempAddress(Type.INTEGER);
+                        newAddr = code.newTemp(Type.INTEGER);
                     else
-                        newAddr = new TempAddress(Type.FLOAT);
+                        newAddr = code.newTemp(Type.FLOAT);
 
                     Expression mulExpr = new Expression(newAddr);
-                    code.emit(mulExpr.addr()+" = "+expr1.addr()+" * "+expr2.addr());
+                    code.emit(Opcode.MUL, mulExpr.address(), expr1.address(), expr2.address());
                     expr1 = mulExpr;
                     type1 = mulExpr.type();
                 }
                 else{
-                    newAddr = new TempAddress(Type.ERROR);
+                    newAddr = code.newTemp(Type.ERROR);
 
                     Expression errExpr = new Expression(newAddr);
-                    code.emit(errExpr.addr()+" = "+expr1.addr()+" * "+expr2.addr());
+                    code.emit(Opcode.MUL, errExpr.address(), expr1.address(), expr2.address());
                     expr1 = errExpr;
                     type1 = errExpr.type();
                 }
             } else if("/".equals(op)){
                 if((type1==Type.INTEGER || type1==Type.FLOAT) && (type2==Type.INTEGER || type2==Type.FLOAT)){
                     if(type1==Type.INTEGER && type2==Type.INTEGER)
-                        newAddr = new TempAddress(Type.INTEGER);
+                        newAddr = code.newTemp(Type.INTEGER);
                     else
-                        newAddr = new TempAddress(Type.FLOAT);
+                        newAddr = code.newTemp(Type.FLOAT);
 
                     Expression divExpr = new Expression(newAddr);
-                    code.emit(divExpr.addr()+" = "+expr1.addr()+" / "+expr2.addr());
+                    code.emit(Opcode.DIV, divExpr.address(), expr1.address(), expr2.address());
                     expr1 = divExpr;
                     type1 = divExpr.type();
                 }
                 else{
-                    newAddr = new TempAddress(Type.ERROR);
+                    newAddr = code.newTemp(Type.ERROR);
 
                     Expression errExpr = new Expression(newAddr);
-                    code.emit(errExpr.addr()+" = "+expr1.addr()+" / "+expr2.addr());
+                    code.emit(Opcode.DIV, errExpr.address(), expr1.address(), expr2.address());
                     expr1 = errExpr;
                     type1 = errExpr.type();
                 }
@@ -560,29 +683,33 @@ public class SyntaticAnalysis {
             eat(TokenType.EXCLAMATION);
             Expression expr = procFactor();
             Type type = expr.type();
+            if (expr.isJumping() || jumping()) {
+                expr = jump(expr);
+                return new Expression(type == Type.INTEGER ? Type.INTEGER : Type.ERROR, expr.getFalselist(), expr.getTruelist());
+            }
 
             Address newAddr;
             if(type == Type.INTEGER)
-                newAddr = new TempAddress(Type.INTEGER);
+                newAddr = code.newTemp(Type.INTEGER);
             else
-                newAddr = new TempAddress(Type.ERROR);
+                newAddr = code.newTemp(Type.ERROR);
             Expression notExpr = new Expression(newAddr);
-            code.emit(notExpr.addr()+" = !"+expr.addr());
+            code.emit(Opcode.NOT, notExpr.address(), expr.address());
             return notExpr;
         } else if(current.type==TokenType.SUB){
             eat(TokenType.SUB);
-            Expression expr = procFactor();
+            Expression expr = value(procFactor());
             Type type = expr.type();
 
             Address newAddr;
             if(type == Type.INTEGER)
-                newAddr = new TempAddress(Type.INTEGER);
+                newAddr = code.newTemp(Type.INTEGER);
             else if(type == Type.FLOAT)
-                newAddr = new TempAddress(Type.FLOAT);
+                newAddr = code.newTemp(Type.FLOAT);
             else
-                newAddr = new TempAddress(Type.ERROR);
+                newAddr = code.newTemp(Type.ERROR);
             Expression negExpr = new Expression(newAddr);
-            code.emit(negExpr.addr()+" = -"+expr.addr());
+            code.emit(Opcode.NEG, negExpr.address(), expr.address());
             return negExpr;
         } else {
             showLexicalOrSyntaticError();
@@ -593,7 +720,7 @@ public class SyntaticAnalysis {
     //factor ::= identifier | constant | "(" expression ")"
     private Expression procFactor() throws LexicalException{
         if(current.type == TokenType.ID){
-            String id = procId();
+            Symbol id = procId();
             return new Expression(top.get(id));
         } else if(current.type == TokenType.INTEGER || current.type == TokenType.FLOAT || current.type == TokenType.STRING){
             return procConstant();
@@ -611,17 +738,17 @@ public class SyntaticAnalysis {
     //relop ::= "==" | ">" | ">=" | "<" | "<=" | "<>"
     private String procRelOp() throws LexicalException {
         if (current.type == TokenType.EQUALS){
-            return eat(TokenType.EQUALS);
+            return eat(TokenType.EQUALS).token();
         } else if (current.type == TokenType.GREATER) {
-            return eat(TokenType.GREATER);
+            return eat(TokenType.GREATER).token();
         } else if (current.type == TokenType.GREATER_EQ) {
-            return eat(TokenType.GREATER_EQ);
+            return eat(TokenType.GREATER_EQ).token();
         } else if (current.type == TokenType.LOWER) {
-            return eat(TokenType.LOWER);
+            return eat(TokenType.LOWER).token();
         } else if (current.type == TokenType.LOWER_EQ) {
-            return eat(TokenType.LOWER_EQ);
+            return eat(TokenType.LOWER_EQ).token();
         } else if(current.type == TokenType.NOT_EQUALS) {
-            return eat(TokenType.NOT_EQUALS);
+            return eat(TokenType.NOT_EQUALS).token();
         } else {
             showLexicalOrSyntaticError();
             return null;
@@ -631,11 +758,11 @@ public class SyntaticAnalysis {
     //addop ::= "+" | "-" | "||"
     private String procAddOp() throws LexicalException {
         if (current.type == TokenType.ADD) {
-            return eat(TokenType.ADD);
+            return eat(TokenType.ADD).token();
         } else if (current.type == TokenType.SUB) {
-            return eat(TokenType.SUB);
+            return eat(TokenType.SUB).token();
         } else if (current.type == TokenType.OR) {
-            return eat(TokenType.OR);
+            return eat(TokenType.OR).token();
         } else {
             showLexicalOrSyntaticError();
             return null;
@@ -645,11 +772,11 @@ public class SyntaticAnalysis {
     //mulop ::= "*" | "/" | "&&"
     private String procMulop() throws LexicalException {
         if (current.type == TokenType.MUL) {
-            return eat(TokenType.MUL);
+            return eat(TokenType.MUL).token();
         } else if (current.type == TokenType.DIV) {
-            return eat(TokenType.DIV);
+            return eat(TokenType.DIV).token();
         } else if (current.type == TokenType.AND) {
-            return eat(TokenType.AND);
+            return eat(TokenType.AND).token();
         } else {
             showLexicalOrSyntaticError();
             return null;
@@ -672,25 +799,25 @@ public class SyntaticAnalysis {
 
     //integer_const ::= digit integer_const_tail
     private Address procIntegerConst() throws LexicalException {
-        String number = eat(TokenType.INTEGER);
+        String number = eat(TokenType.INTEGER).token();
         return new ConstAddress(Integer.parseInt(number));
     }
 
     //float_const ::= integer_const “.” integer_const
     private Address procFloatConst() throws LexicalException {
-        String number = eat(TokenType.FLOAT);
+        String number = eat(TokenType.FLOAT).token();
         return new ConstAddress(Float.parseFloat(number));
     }
 
     //literal ::= "{" literal-rept "}"
     private Address procLiteral() throws LexicalException {
-        String string = eat(TokenType.STRING);
+        String string = eat(TokenType.STRING).token();
         return new ConstAddress(string);
     }
 
     //identifier ::= letter-under identifier-tail
-    private String procId() throws LexicalException {
-        return eat(TokenType.ID);
+    private Symbol procId() throws LexicalException {
+        return eat(TokenType.ID).symbol();
     }
 
 }
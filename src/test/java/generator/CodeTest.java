@@ -0,0 +1,75 @@
+package generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CodeTest {
+
+    // O "if" fica pendente durante todo o corpo e segura a marca d'agua: nada pode ser escrito antes
+    // do backpatch, e o stream nao deve ser esvaziado a cada instrucao enquanto isso
+    @Test
+    void streamingWaitsForLongPendingJump() {
+        StringBuilder source = new StringBuilder("start int a; scan(a); if a > 0 then\n");
+        for (int i = 0; i < 5000; i++)
+            source.append("a = a + 1;\n");
+        source.append("end print(a); exit");
+
+        String expected = Programs.compile(source.toString()).toString();
+        CountingWriter out = new CountingWriter();
+        Code code = Programs.compile(source.toString(), out);
+        assertTrue(out.getBuffer().length() > 0, "nada foi escrito depois do backpatch");
+        code.finish();
+
+        assertEquals(expected, out.toString());
+        assertTrue(out.flushes <= 3, "flush() chamado " + out.flushes + " vezes");
+    }
+
+    // Sem saltos pendentes, o que fica guardado (instrucoes e tipos dos temporarios) nao cresce com o
+    // tamanho do programa: 200 mil temporarios cabem em vetores de poucos milhares de posicoes
+    @Test
+    void streamingKeepsBoundedStateOnStraightLineCode() {
+        StringBuilder source = new StringBuilder("start int a; scan(a);\n");
+        for (int i = 0; i < 200_000; i++)
+            source.append("a = a + ").append(i % 10).append(";\n");
+        source.append("print(a); exit");
+
+        Code code = Programs.compile(source.toString(), Writer.nullWriter());
+        code.finish();
+        assertEquals(400_003, code.size());
+        assertTrue(code.firstRetained() > 390_000, "descartadas so " + code.firstRetained());
+        assertTrue(code.ops.length <= 16_384, "instrucoes guardadas: " + code.ops.length);
+        assertTrue(code.tempTypes.length <= 16_384, "tipos de temporarios guardados: " + code.tempTypes.length);
+        assertTrue(code.tempBase > 190_000, "temporarios descartados: " + code.tempBase);
+        assertEquals("t199999", code.nameOf(code.arg1(code.size() - 2)));
+    }
+
+    // Depois que o streaming descartou instrucoes, as reescritas do codigo inteiro recusam do mesmo jeito
+    @Test
+    void rewritesRejectDiscardedCode() {
+        StringBuilder source = new StringBuilder("start int a; scan(a);\n");
+        for (int i = 0; i < 10_000; i++)
+            source.append("a = a + 1;\n");
+        source.append("exit");
+
+        Code code = Programs.compile(source.toString(), Writer.nullWriter());
+        assertTrue(code.firstRetained() > 0);
+        assertThrows(IllegalStateException.class, () -> code.compact(new boolean[code.size()]));
+        assertThrows(IllegalStateException.class, () -> code.remapTemps(new int[0], Collections.emptyList()));
+    }
+
+    private static class CountingWriter extends StringWriter {
+        int flushes;
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package generator;
+
+import generator.addresses.NameAddress;
+import lexical.Symbol;
+import lexical.SymbolPool;
+
+// Benchmark de CurrentSymbolTable, fora do surefire: declara n variaveis e busca todas, para n de 10 mil
+// a 1 milhao. Se put e get sao O(1), o tempo por operacao fica estavel enquanto n cresce.
+// Rodar com: mvn -q test-compile && java -cp target/classes:target/test-classes generator.CurrentSymbolTableBenchmark
+public final class CurrentSymbolTableBenchmark {
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    private static final int WARMUP = 5;
+    private static final int ROUNDS = 10;
+
+    private CurrentSymbolTableBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        for (int n : SIZES) {
+            SymbolPool pool = new SymbolPool();
+            Symbol[] ids = new Symbol[n];
+            for (int i = 0; i < n; i++)
+                ids[i] = pool.intern("v" + i);
+            for (int round = 0; round < WARMUP; round++)
+                run(ids);
+
+            long put = Long.MAX_VALUE;
+            long get = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long[] times = run(ids);
+                put = Math.min(put, times[0]);
+                get = Math.min(get, times[1]);
+            }
+            System.out.printf("%9d variaveis: put %7.2f ms (%5.1f ns/op), get %7.2f ms (%5.1f ns/op)%n",
+                    n, put / 1e6, (double) put / n, get / 1e6, (double) get / n);
+        }
+    }
+
+    // Tempos de put e de get, em ns, numa tabela nova com todos os ids
+    private static long[] run(Symbol[] ids) {
+        CurrentSymbolTable table = new CurrentSymbolTable();
+        long start = System.nanoTime();
+        for (Symbol id : ids)
+            table.put(new NameAddress(id, Type.INTEGER));
+        long put = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int found = 0;
+        for (Symbol id : ids) {
+            if (table.get(id) != null)
+                found++;
+        }
+        long get = System.nanoTime() - start;
+        if (found != ids.length)
+            throw new IllegalStateException("Variaveis perdidas: " + (ids.length - found));
+        return new long[]{put, get};
+    }
+}
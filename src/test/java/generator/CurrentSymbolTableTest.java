@@ -0,0 +1,59 @@
+package generator;
+
+import generator.addresses.NameAddress;
+import lexical.Lexeme;
+import lexical.Symbol;
+import lexical.SymbolPool;
+import lexical.TokenType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CurrentSymbolTableTest {
+    private static final int VARIABLES = 100_000;
+
+    // Declara 100k variaveis e busca todas
+    @Test
+    void declaresOneHundredThousandVariables() {
+        SymbolPool pool = new SymbolPool();
+        Symbol[] ids = new Symbol[VARIABLES];
+        for (int i = 0; i < VARIABLES; i++)
+            ids[i] = pool.intern("v" + i);
+
+        CurrentSymbolTable table = new CurrentSymbolTable();
+        for (Symbol id : ids)
+            assertTrue(table.put(new NameAddress(id, Type.INTEGER)));
+        for (int i = 0; i < VARIABLES; i++)
+            assertSame(ids[i], table.get(ids[i]).symbol());
+
+        assertEquals(VARIABLES, table.getTable().size());
+        assertFalse(table.put(new NameAddress(ids[0], Type.FLOAT)));
+    }
+
+    @Test
+    void nestedScopesShadowAndRestore() {
+        SymbolPool pool = new SymbolPool();
+        Symbol a = pool.intern("a");
+        CurrentSymbolTable table = new CurrentSymbolTable();
+        NameAddress outer = new NameAddress(a, Type.INTEGER);
+        NameAddress inner = new NameAddress(a, Type.FLOAT);
+        assertTrue(table.put(outer));
+        table.openScope();
+        assertTrue(table.put(inner));
+        assertSame(inner, table.get(a));
+        table.closeScope();
+        assertSame(outer, table.get(a));
+    }
+
+    @Test
+    void rejectsSymbolOutsidePool() {
+        Symbol loose = new Lexeme("x", TokenType.ID).symbol();
+        CurrentSymbolTable table = new CurrentSymbolTable();
+        assertFalse(table.contains(loose));
+        assertThrows(IllegalArgumentException.class, () -> table.put(new NameAddress(loose, Type.INTEGER)));
+    }
+}
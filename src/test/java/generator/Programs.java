@@ -0,0 +1,60 @@
+package generator;
+
+import generator.ir.Quads;
+import generator.opt.Optimizer;
+import generator.output.TextListing;
+import lexical.LexicalAnalysis;
+import lexical.source.BufferedCharSource;
+import syntatic.SyntaticAnalysis;
+
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compila os programas dos testes a partir do texto, sem escrever a listagem
+public final class Programs {
+
+    private Programs() {
+    }
+
+    public static Code compile(String source) {
+        return compile(source, null, false, null);
+    }
+
+    // Com stream, a listagem e escrita nele enquanto o programa e analisado
+    public static Code compile(String source, Writer stream) {
+        return compile(source, stream, false, null);
+    }
+
+    // Com jumpingCode, && e || das condicoes viram saltos com curto-circuito (--short-circuit)
+    public static Code compile(String source, boolean jumpingCode) {
+        return compile(source, null, jumpingCode, null);
+    }
+
+    // Com as otimizacoes de --opt=passes, que rodam mesmo se o programa tiver erro semantico
+    public static Code optimize(String source, String passes) {
+        return compile(source, null, false, Optimizer.parse(passes, null));
+    }
+
+    private static Code compile(String source, Writer stream, boolean jumpingCode, Optimizer optimizer) {
+        try {
+            LexicalAnalysis lexer = new LexicalAnalysis(new BufferedCharSource(source.getBytes(StandardCharsets.ISO_8859_1)));
+            SyntaticAnalysis parser = new SyntaticAnalysis(lexer, stream);
+            parser.setJumpingCode(jumpingCode);
+            parser.setOptimizer(optimizer);
+            parser.compile();
+            return parser.code();
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    // Uma instrucao por linha, como "103 t = a + 1"
+    public static List<String> lines(Quads code) {
+        List<String> lines = new ArrayList<>();
+        for (int i = code.firstRetained(); i < code.size(); i++)
+            lines.add(code.address(i) + " " + TextListing.line(code, i));
+        return lines;
+    }
+}
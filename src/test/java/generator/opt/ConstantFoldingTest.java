@@ -0,0 +1,80 @@
+package generator.opt;
+
+import generator.Code;
+import generator.Programs;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConstantFoldingTest {
+
+    @Test
+    void foldsIntegerAndFloatAndPropagatesThroughCopies() {
+        ConstantFolding pass = new ConstantFolding();
+        Code code = fold(pass, "start int a, b, z; float x, y;\n"
+                + "a = 2 * 3 + 1; x = 1.5 * 2; y = x + a; b = a; z = b * 4; print(z); exit");
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 INTEGER b",
+                "102 INTEGER z",
+                "103 FLOAT x",
+                "104 FLOAT y",
+                "105 a = 7",
+                "106 x = 3.0",
+                "107 y = 10.0",
+                "108 b = 7",
+                "109 z = 28",
+                "110 out 28"), Programs.lines(code));
+        assertEquals(5, pass.eliminated());
+    }
+
+    // Divisao por zero fica para a execucao, mesmo com os operandos conhecidos
+    @Test
+    void divisionByZeroConstantIsNotFolded() {
+        Code code = fold(new ConstantFolding(), "start int a, z; float x, y;\n"
+                + "a = 7; x = 3.0; z = a / 0; y = x / 0.0; print(z); exit");
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 INTEGER z",
+                "102 FLOAT x",
+                "103 FLOAT y",
+                "104 a = 7",
+                "105 x = 3.0",
+                "106 t = 7 / 0",
+                "107 z = t",
+                "108 t1 = 3.0 / 0.0",
+                "109 y = t1",
+                "110 out z"), Programs.lines(code));
+    }
+
+    // Constantes nao atravessam o inicio de um bloco; um "if" constante vira goto ou sai
+    @Test
+    void stopsAtJumpTargetsAndResolvesConstantBranches() {
+        Code code = fold(new ConstantFolding(), "start int a; a = 1;\n"
+                + "do print(a); a = a + 1; while (a < 10) end\n"
+                + "if 1 > 2 then print({nunca}); end\n"
+                + "if 2 > 1 then print({sempre}); end exit");
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 a = 1",
+                "102 out a",
+                "103 t = a + 1",
+                "104 a = t",
+                "105 t1 = a < 10",
+                "106 if t1 goto 102",
+                "107 goto 108",
+                "108 goto 110",
+                "109 out \"nunca\"",
+                "110 goto 112",
+                "111 goto 113",
+                "112 out \"sempre\""), Programs.lines(code));
+    }
+
+    private static Code fold(ConstantFolding pass, String source) {
+        Code code = Programs.compile(source);
+        pass.run(code);
+        return code;
+    }
+}
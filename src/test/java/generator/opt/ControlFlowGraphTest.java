@@ -0,0 +1,49 @@
+package generator.opt;
+
+import generator.Code;
+import generator.Programs;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ControlFlowGraphTest {
+
+    //  0-5   decl, decl, scan, scan, t = a > 0, if t goto 107    B0
+    //  6     goto 114                                            B1
+    //  7-8   t1 = b > 0, if t1 goto 110                          B2
+    //  9     goto 112                                            B3
+    // 10-11  out 1, goto 113                                     B4
+    // 12     out 2                                               B5
+    // 13     goto 115 (fim do codigo)                            B6
+    // 14     out 3                                               B7
+    @Test
+    void splitsAtJumpsAndTargets() {
+        Code code = Programs.compile("start int a, b; scan(a); scan(b);\n"
+                + "if a > 0 then if b > 0 then print(1); else print(2); end else print(3); end exit");
+        ControlFlowGraph cfg = new ControlFlowGraph(code);
+
+        assertEquals(8, cfg.size());
+        int[] starts = {0, 6, 7, 9, 10, 12, 13, 14};
+        for (int b = 0; b < cfg.size(); b++) {
+            assertEquals(starts[b], cfg.start(b));
+            assertEquals(b + 1 < cfg.size() ? starts[b + 1] : code.size(), cfg.end(b));
+        }
+        assertEquals(4, cfg.blockOf(11));
+        assertEquals(11, cfg.last(4));
+
+        assertArrayEquals(new int[]{1, 2}, cfg.successors(0));
+        assertArrayEquals(new int[]{7}, cfg.successors(1));
+        assertArrayEquals(new int[]{3, 4}, cfg.successors(2));
+        assertArrayEquals(new int[]{5}, cfg.successors(3));
+        assertArrayEquals(new int[]{6}, cfg.successors(4));
+        assertArrayEquals(new int[]{6}, cfg.successors(5));
+        // Saltar para o fim do codigo e cair do ultimo bloco nao geram aresta
+        assertArrayEquals(new int[0], cfg.successors(6));
+        assertArrayEquals(new int[0], cfg.successors(7));
+
+        assertArrayEquals(new int[]{4, 5}, cfg.predecessors(6));
+        assertArrayEquals(new int[]{1}, cfg.predecessors(7));
+        assertArrayEquals(new int[]{0, 2, 4, 3, 5, 6, 1, 7}, cfg.reversePostorder());
+    }
+}
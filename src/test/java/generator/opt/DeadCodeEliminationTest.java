@@ -0,0 +1,100 @@
+package generator.opt;
+
+import generator.Code;
+import generator.Programs;
+import generator.Type;
+import generator.addresses.ConstAddress;
+import generator.addresses.NameAddress;
+import lexical.SymbolPool;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DeadCodeEliminationTest {
+
+    // a = 1 e sobrescrito antes de ser lido, entao a cadeia b, c que dependia dele cai inteira de uma
+    // vez (vivacidade forte). Os dois scan ficam, e o out fica com o temporario que le.
+    @Test
+    void removesDeadStoresAndKeepsScanAndOut() {
+        DeadCodeElimination pass = new DeadCodeElimination();
+        Code code = Programs.compile("start int a, b, c;\n"
+                + "scan(a); scan(a); a = 1; b = a + 2; c = b * 3; a = 2; print(a + 1); exit");
+        pass.run(code);
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 INTEGER b",
+                "102 INTEGER c",
+                "103 scan a",
+                "104 scan a",
+                "105 a = 2",
+                "106 t2 = a + 1",
+                "107 out t2"), Programs.lines(code));
+    }
+
+    // Lidas depois pelo laco, as atribuicoes anteriores a ele ficam; a troca n1/n2 so alimenta a si mesma
+    @Test
+    void keepsValuesReadAroundTheLoop() {
+        Code code = Programs.compile("start int n, n1, n2, aux, termos; n = 0; scan(termos);\n"
+                + "do print(n); aux = n1 + n2; n1 = n2; n2 = aux; termos = termos - 1; while (termos > 0) end exit");
+        new DeadCodeElimination().run(code);
+        assertEquals(Arrays.asList(
+                "100 INTEGER n",
+                "101 INTEGER n1",
+                "102 INTEGER n2",
+                "103 INTEGER aux",
+                "104 INTEGER termos",
+                "105 n = 0",
+                "106 scan termos",
+                "107 out n",
+                "108 t1 = termos - 1",
+                "109 termos = t1",
+                "110 t2 = termos > 0",
+                "111 if t2 goto 107",
+                "112 goto 113"), Programs.lines(code));
+    }
+
+    // Depois da propagacao o "then" nunca executa: o bloco sai com o out e a atribuicao
+    @Test
+    void removesUnreachableBlocks() {
+        Code code = Programs.optimize("start int a, c; scan(a); c = a;\n"
+                + "if 1 > 2 then print(c); c = 5; end print(a); exit", "fold,dce");
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 INTEGER c",
+                "102 scan a",
+                "103 goto 104",
+                "104 out a"), Programs.lines(code));
+    }
+
+    // Uma declaracao fica mesmo num bloco que nunca executa
+    @Test
+    void keepsDeclarationInUnreachableBlock() {
+        Code code = new Code();
+        int skip = code.emitGoto();
+        NameAddress a = new NameAddress(new SymbolPool().intern("a"), Type.INTEGER);
+        code.symbols().put(a);
+        code.emitDecl(a);
+        code.emitOut(a);
+        code.backpatch(skip, code.nextInst());
+        code.emitOut(new ConstAddress(2));
+        new DeadCodeElimination().run(code);
+        assertEquals(Arrays.asList(
+                "100 goto 102",
+                "101 INTEGER a",
+                "102 out 2"), Programs.lines(code));
+    }
+
+    // Com erro semantico as otimizacoes rodam assim mesmo e o temporario ERROR de "s + 1", que nenhuma
+    // instrucao le, sai da listagem
+    @Test
+    void prunesErrorTempsAfterSemanticError() {
+        Code code = Programs.optimize("start int a; string s; s = {x}; a = s + 1; print(s); exit", "dce");
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 STRING s",
+                "102 s = \"x\"",
+                "103 out s"), Programs.lines(code));
+    }
+}
@@ -0,0 +1,78 @@
+package generator.opt;
+
+import generator.Code;
+import generator.Programs;
+import generator.Type;
+import generator.addresses.ConstAddress;
+import generator.addresses.NameAddress;
+import lexical.SymbolPool;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JumpThreadingTest {
+
+    // O goto do "then" interno cai num goto para o fim do codigo e passa a ir direto para o fim,
+    // que continua sendo um destino valido (code.size())
+    @Test
+    void threadsGotoChainIntoEndOfCode() {
+        Code code = Programs.compile("start int a, b; scan(a); scan(b);\n"
+                + "if a > 0 then if b > 0 then print(1); else print(2); end else print(3); end exit");
+        new JumpThreading().run(code);
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 INTEGER b",
+                "102 scan a",
+                "103 scan b",
+                "104 t = a > 0",
+                "105 if t goto 107",
+                "106 goto 114",
+                "107 t1 = b > 0",
+                "108 if t1 goto 110",
+                "109 goto 112",
+                "110 out 1",
+                "111 goto 115",
+                "112 out 2",
+                "113 goto 115",
+                "114 out 3"), Programs.lines(code));
+    }
+
+    // O "goto fim" que sobra no fim de um do-while salta para code.size(), logo depois dele
+    @Test
+    void removesJumpToEndOfCodeAtTheEnd() {
+        Code code = Programs.compile("start int n; scan(n); do n = n - 1; while (n > 0) end exit");
+        new JumpThreading().run(code);
+        assertEquals(Arrays.asList(
+                "100 INTEGER n",
+                "101 scan n",
+                "102 t = n - 1",
+                "103 n = t",
+                "104 t1 = n > 0",
+                "105 if t1 goto 102"), Programs.lines(code));
+    }
+
+    // 101 if a goto 102 salta para a seguinte; 102 goto 104 -> 104 goto 106 vira goto 106, o que deixa
+    // 104 inalcancavel e 102 saltando para a seguinte. 103 e 105 nunca sao alcancados.
+    @Test
+    void removesJumpsToNextInstructionAndUnreachableCode() {
+        Code code = new Code();
+        NameAddress a = new NameAddress(new SymbolPool().intern("a"), Type.INTEGER);
+        code.symbols().put(a);
+        code.emitDecl(a);
+        code.backpatch(code.emitIf(a), 102);
+        int first = code.emitGoto();
+        code.emitOut(new ConstAddress(1));
+        int second = code.emitGoto();
+        code.emitOut(new ConstAddress(2));
+        code.backpatch(first, 104);
+        code.backpatch(second, 106);
+        code.emitOut(a);
+
+        new JumpThreading().run(code);
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 out a"), Programs.lines(code));
+    }
+}
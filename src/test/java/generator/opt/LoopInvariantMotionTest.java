@@ -0,0 +1,126 @@
+package generator.opt;
+
+import generator.Code;
+import generator.Programs;
+import generator.Type;
+import generator.addresses.ConstAddress;
+import generator.addresses.NameAddress;
+import generator.addresses.TempAddress;
+import generator.ir.Opcode;
+import lexical.SymbolPool;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LoopInvariantMotionTest {
+
+    // t = a * 2 era a primeira instrucao do laco: sai para o preheader, no endereco antigo de m1, e o
+    // salto de volta passa a ir para t1 = t + n, a primeira que ficou
+    @Test
+    void hoistsInvariantAndRetargetsBackEdge() {
+        Code code = Programs.compile("start int a, b, n; scan(a); scan(n);\n"
+                + "do b = a * 2 + n; print(b); n = n - 1; while (n > 0) end exit");
+        new LoopInvariantMotion().run(code);
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 INTEGER b",
+                "102 INTEGER n",
+                "103 scan a",
+                "104 scan n",
+                "105 t = a * 2",
+                "106 t1 = t + n",
+                "107 b = t1",
+                "108 out b",
+                "109 t2 = n - 1",
+                "110 n = t2",
+                "111 t3 = n > 0",
+                "112 if t3 goto 106",
+                "113 goto 114"), Programs.lines(code));
+    }
+
+    // Dentro do if: b = a fica, porque b e variavel e a atribuicao nao roda em toda iteracao; a * 3 sai
+    // porque o temporario so e lido no laco. 10 / a fica (a pode ser zero); a / 2 sai.
+    @Test
+    void keepsConditionalVariableStoreAndDivisionByVariable() {
+        Code code = Programs.compile("start int a, b, c, n; scan(a); scan(n);\n"
+                + "do\n"
+                + "  if n > 5 then b = a; print(a * 3); end\n"
+                + "  c = 10 / a; print(c); print(a / 2);\n"
+                + "  n = n - 1;\n"
+                + "while (n > 0) end exit");
+        new LoopInvariantMotion().run(code);
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 INTEGER b",
+                "102 INTEGER c",
+                "103 INTEGER n",
+                "104 scan a",
+                "105 scan n",
+                "106 t1 = a * 3",
+                "107 t3 = a / 2",
+                "108 t = n > 5",
+                "109 if t goto 111",
+                "110 goto 113",
+                "111 b = a",
+                "112 out t1",
+                "113 t2 = 10 / a",
+                "114 c = t2",
+                "115 out c",
+                "116 out t3",
+                "117 t4 = n - 1",
+                "118 n = t4",
+                "119 t5 = n > 0",
+                "120 if t5 goto 108",
+                "121 goto 122"), Programs.lines(code));
+    }
+
+    // 103 salta para o meio de [104, 107]: o laco tem outra entrada alem de m1 e fica como esta. Sem
+    // essa entrada, t = a * 2 e b = t sairiam e o salto iria para out b.
+    @Test
+    void rejectsLoopWithSideEntry() {
+        Code entered = loop(true);
+        List<String> before = Programs.lines(entered);
+        new LoopInvariantMotion().run(entered);
+        assertEquals(before, Programs.lines(entered));
+
+        Code plain = loop(false);
+        new LoopInvariantMotion().run(plain);
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 INTEGER b",
+                "102 scan a",
+                "103 out a",
+                "104 t = a * 2",
+                "105 b = t",
+                "106 out b",
+                "107 if b goto 106"), Programs.lines(plain));
+    }
+
+    // 102 scan a; 103 "if a goto 106" (ou "out a"); 104 t = a * 2; 105 b = t; 106 out b; 107 if b goto 104
+    private static Code loop(boolean sideEntry) {
+        Code code = new Code();
+        SymbolPool pool = new SymbolPool();
+        NameAddress a = new NameAddress(pool.intern("a"), Type.INTEGER);
+        NameAddress b = new NameAddress(pool.intern("b"), Type.INTEGER);
+        code.symbols().put(a);
+        code.symbols().put(b);
+        code.emitDecl(a);
+        code.emitDecl(b);
+        code.emitScan(a);
+        int entry = sideEntry ? code.emitIf(a) : -1;
+        if (!sideEntry)
+            code.emitOut(a);
+        int head = code.nextInst();
+        TempAddress t = code.newTemp(Type.INTEGER);
+        code.emit(Opcode.MUL, t, a, new ConstAddress(2));
+        code.emit(Opcode.COPY, b, t);
+        if (sideEntry)
+            code.backpatch(entry, code.nextInst());
+        code.emitOut(b);
+        code.backpatch(code.emitIf(b), head);
+        return code;
+    }
+}
@@ -0,0 +1,116 @@
+package generator.opt;
+
+import generator.Code;
+import generator.Programs;
+import generator.Type;
+import generator.addresses.ConstAddress;
+import generator.addresses.NameAddress;
+import generator.ir.Opcode;
+import lexical.SymbolPool;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SparseConditionalConstantsTest {
+
+    // Blocos: [100, 104] if, 105 goto do else, [106, 107] then, 108 else, 109 juncao. O bloco do if
+    // domina os lados e a juncao, a juncao e a fronteira de cada lado e so b, lido nela, ganha phi.
+    @Test
+    void dominatorsAndPhisOfDiamond() {
+        Code code = Programs.compile("start int a, b; scan(a);\n"
+                + "if a > 0 then b = 1; else b = 2; end print(b); exit");
+        SsaForm ssa = new SsaForm(code);
+        Dominators dominators = ssa.dominators();
+        ControlFlowGraph cfg = ssa.cfg();
+        assertEquals(5, cfg.size());
+        assertArrayEquals(new int[]{0, 0, 0, 1, 0},
+                new int[]{dominators.idom(0), dominators.idom(1), dominators.idom(2), dominators.idom(3), dominators.idom(4)});
+        assertArrayEquals(new int[0], dominators.frontier(0));
+        for (int b = 1; b <= 3; b++)
+            assertArrayEquals(new int[]{4}, dominators.frontier(b));
+        assertEquals(1, ssa.phis());
+    }
+
+    // a = 1 deixa a > 0 constante: o if vira goto, o else nunca roda e sai, e o phi de b so ve o lado
+    // do then, entao print(b) vira print(2)
+    @Test
+    void constantIfBecomesGotoAndPhiIgnoresDeadEdge() {
+        Code code = Programs.compile("start int a, b; a = 1;\n"
+                + "if a > 0 then b = 2; else b = 3; end print(b); exit");
+        SparseConditionalConstants pass = new SparseConditionalConstants();
+        pass.run(code);
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 INTEGER b",
+                "102 a = 1",
+                "103 goto 104",
+                "104 b = 2",
+                "105 goto 106",
+                "106 out 2"), Programs.lines(code));
+        assertTrue(pass.report().contains(" 1 phis, 2 leituras "));
+        assertTrue(pass.report().contains(" 1 desvios resolvidos, 3 "));
+    }
+
+    // Condicao constante falsa: o if sai e o then some
+    @Test
+    void constantFalseIfIsRemoved() {
+        Code code = Programs.compile("start int a; a = 1; if a < 0 then print(a); end print(5); exit");
+        new SparseConditionalConstants().run(code);
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 a = 1",
+                "102 goto 103",
+                "103 out 5"), Programs.lines(code));
+    }
+
+    // 101 salta por cima de 102 e 103: out 7 sai, a declaracao fica
+    @Test
+    void removesUnreachableBlockButKeepsDecl() {
+        Code code = new Code();
+        SymbolPool pool = new SymbolPool();
+        NameAddress a = new NameAddress(pool.intern("a"), Type.INTEGER);
+        NameAddress b = new NameAddress(pool.intern("b"), Type.INTEGER);
+        code.symbols().put(a);
+        code.symbols().put(b);
+        code.emitDecl(a);
+        int skip = code.emitGoto();
+        code.emitDecl(b);
+        code.emitOut(new ConstAddress(7));
+        code.backpatch(skip, code.nextInst());
+        code.emitScan(a);
+        code.emitOut(a);
+        new SparseConditionalConstants().run(code);
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 goto 103",
+                "102 INTEGER b",
+                "103 scan a",
+                "104 out a"), Programs.lines(code));
+    }
+
+    // O laco comeca na primeira instrucao, entao o bloco 0 tambem e alcancado pela entrada, onde a e
+    // indefinido: o phi de a nao pode ficar so com o 5 da aresta de volta
+    @Test
+    void phiInEntryBlockMeetsUndefined() {
+        Code code = new Code();
+        SymbolPool pool = new SymbolPool();
+        NameAddress a = new NameAddress(pool.intern("a"), Type.INTEGER);
+        NameAddress b = new NameAddress(pool.intern("b"), Type.INTEGER);
+        code.symbols().put(a);
+        code.symbols().put(b);
+        code.emitOut(a);
+        code.emit(Opcode.COPY, a, new ConstAddress(5));
+        code.emitScan(b);
+        code.backpatch(code.emitIf(b), 100);
+        new SparseConditionalConstants().run(code);
+        assertEquals(Arrays.asList(
+                "100 out a",
+                "101 a = 5",
+                "102 scan b",
+                "103 if b goto 100"), Programs.lines(code));
+    }
+}
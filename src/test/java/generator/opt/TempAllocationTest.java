@@ -0,0 +1,197 @@
+package generator.opt;
+
+import generator.Code;
+import generator.Programs;
+import generator.Type;
+import generator.addresses.ConstAddress;
+import generator.addresses.NameAddress;
+import generator.addresses.TempAddress;
+import generator.ir.Opcode;
+import generator.ir.Operand;
+import lexical.SymbolPool;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TempAllocationTest {
+
+    @Test
+    void samplePrograms() throws IOException {
+        for (int i = 1; i <= 6; i++) {
+            String source = new String(Files.readAllBytes(Paths.get("teste" + i + ".txt")), StandardCharsets.ISO_8859_1);
+            allocate(Programs.compile(source));
+        }
+    }
+
+    // t = a * 2 sai do laco e e lido em toda iteracao: vive no laco inteiro, inclusive na volta
+    @Test
+    void hoistedTempKeepsItsSlotAcrossTheLoop() {
+        Code code = Programs.compile("start int a, b, n; scan(a); scan(n);\n"
+                + "do b = a * 2 + n; print(b); n = n - 1; while (n > 0) end exit");
+        new LoopInvariantMotion().run(code);
+        allocate(code);
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 INTEGER b",
+                "102 INTEGER n",
+                "103 scan a",
+                "104 scan n",
+                "105 t = a * 2",
+                "106 t1 = t + n",
+                "107 b = t1",
+                "108 out b",
+                "109 t1 = n - 1",
+                "110 n = t1",
+                "111 t1 = n > 0",
+                "112 if t1 goto 106",
+                "113 goto 114"), Programs.lines(code));
+    }
+
+    // t0 acumula entre iteracoes e t3 e lido antes de ser escrito no laco: os dois ficam vivos na volta
+    // e nao podem dividir vaga com os temporarios locais do corpo
+    @Test
+    void loopCarriedAndReadBeforeWrittenTemps() {
+        Code code = new Code();
+        NameAddress a = declare(code, "a", Type.INTEGER);
+        TempAddress sum = code.newTemp(Type.INTEGER);
+        TempAddress step = code.newTemp(Type.INTEGER);
+        TempAddress test = code.newTemp(Type.INTEGER);
+        TempAddress previous = code.newTemp(Type.INTEGER);
+        code.emit(Opcode.COPY, sum, new ConstAddress(0));
+        int head = code.nextInst();
+        code.emit(Opcode.ADD, step, a, new ConstAddress(1));
+        code.emitOut(previous);
+        code.emit(Opcode.ADD, sum, sum, step);
+        code.emit(Opcode.COPY, previous, sum);
+        code.emit(Opcode.LT, test, sum, new ConstAddress(10));
+        code.backpatch(code.emitIf(test), head);
+        code.emitOut(sum);
+
+        int[] slot = allocate(code);
+        assertNotEquals(slot[sum.getCopy()], slot[step.getCopy()]);
+        assertNotEquals(slot[previous.getCopy()], slot[step.getCopy()]);
+        assertNotEquals(slot[previous.getCopy()], slot[sum.getCopy()]);
+    }
+
+    // a * 2, a * 3 e a * 4 ficam vivos juntos: tres vagas int e uma float bastam para os sete temporarios
+    @Test
+    void frameShrinksToTheSlotsInUse() {
+        Code code = Programs.compile("start int a, b; float x; scan(a);\n"
+                + "b = a * 2 + a * 3 + a * 4; x = 1.5 * 2.0 + x; print(b); exit");
+        assertEquals(7, code.temps().size());
+        TempAllocation pass = new TempAllocation();
+        pass.run(code);
+        assertEquals(4, pass.tempCount());
+        // variaveis 4 + 4 + 8; temporarios de 5 * 4 + 2 * 8 = 36 para 3 * 4 + 8 = 20
+        assertEquals(16 + 20, pass.frameBytes());
+    }
+
+    private static NameAddress declare(Code code, String name, Type type) {
+        NameAddress addr = new NameAddress(new SymbolPool().intern(name), type);
+        assertTrue(code.symbols().put(addr));
+        code.emitDecl(addr);
+        return addr;
+    }
+
+    // Roda a alocacao e confere, com a vivacidade por instrucao do codigo original, que temporarios
+    // vivos ao mesmo tempo (ou escritos enquanto o outro esta vivo) ficaram em vagas diferentes do
+    // mesmo tipo. Devolve a vaga de cada temporario original.
+    private static int[] allocate(Code code) {
+        int size = code.size();
+        int[][] before = operands(code);
+        List<TempAddress> temps = new ArrayList<>(code.temps());
+        new TempAllocation().run(code);
+        int[][] after = operands(code);
+
+        int[] slot = new int[temps.size()];
+        Arrays.fill(slot, -1);
+        for (int i = 0; i < size; i++) {
+            for (int k = 0; k < 3; k++) {
+                if (Operand.kind(before[i][k]) != Operand.TEMP)
+                    continue;
+                int t = Operand.id(before[i][k]);
+                int s = Operand.id(after[i][k]);
+                assertTrue(slot[t] < 0 || slot[t] == s, "t" + t + " mudou de vaga");
+                assertEquals(temps.get(t).type(), code.temps().get(s).type());
+                slot[t] = s;
+            }
+        }
+
+        BitSet[] liveOut = liveness(code, before);
+        for (int i = 0; i < size; i++) {
+            int result = before[i][0];
+            BitSet live = (BitSet) liveOut[i].clone();
+            if (Operand.kind(result) == Operand.TEMP) {
+                int r = Operand.id(result);
+                for (int u = live.nextSetBit(0); u >= 0; u = live.nextSetBit(u + 1)) {
+                    if (u != r)
+                        assertNotEquals(slot[r], slot[u], "t" + r + " escrito com t" + u + " vivo em " + code.address(i));
+                }
+                live.clear(r);
+            }
+            for (int k = 1; k < 3; k++) {
+                if (Operand.kind(before[i][k]) == Operand.TEMP)
+                    live.set(Operand.id(before[i][k]));
+            }
+            for (int u = live.nextSetBit(0); u >= 0; u = live.nextSetBit(u + 1)) {
+                for (int v = live.nextSetBit(u + 1); v >= 0; v = live.nextSetBit(v + 1))
+                    assertNotEquals(slot[u], slot[v], "t" + u + " e t" + v + " vivos em " + code.address(i));
+            }
+        }
+        return slot;
+    }
+
+    private static int[][] operands(Code code) {
+        int[][] operands = new int[code.size()][];
+        for (int i = 0; i < code.size(); i++)
+            operands[i] = new int[]{code.result(i), code.arg1(i), code.arg2(i)};
+        return operands;
+    }
+
+    // Temporarios vivos depois de cada instrucao
+    private static BitSet[] liveness(Code code, int[][] operands) {
+        int size = code.size();
+        BitSet[] liveOut = new BitSet[size];
+        BitSet[] liveIn = new BitSet[size];
+        for (int i = 0; i < size; i++) {
+            liveOut[i] = new BitSet();
+            liveIn[i] = new BitSet();
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = size - 1; i >= 0; i--) {
+                BitSet out = new BitSet();
+                Opcode op = code.op(i);
+                if (op != Opcode.GOTO && i + 1 < size)
+                    out.or(liveIn[i + 1]);
+                if (op.isJump() && code.isResolved(i) && code.indexOf(code.target(i)) < size)
+                    out.or(liveIn[code.indexOf(code.target(i))]);
+                BitSet in = (BitSet) out.clone();
+                if (Operand.kind(operands[i][0]) == Operand.TEMP)
+                    in.clear(Operand.id(operands[i][0]));
+                for (int k = 1; k < 3; k++) {
+                    if (Operand.kind(operands[i][k]) == Operand.TEMP)
+                        in.set(Operand.id(operands[i][k]));
+                }
+                if (!out.equals(liveOut[i]) || !in.equals(liveIn[i])) {
+                    liveOut[i] = out;
+                    liveIn[i] = in;
+                    changed = true;
+                }
+            }
+        }
+        return liveOut;
+    }
+}
@@ -0,0 +1,37 @@
+package generator.opt;
+
+import generator.Code;
+import generator.Programs;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UninitializedVariablesTest {
+
+    // b so recebe valor no then e e lido em 111 (out b), depois da juncao; c recebe nos dois lados e a
+    // no scan
+    @Test
+    void reportsVariableAssignedOnOnlyOnePath() {
+        Code code = Programs.compile("start int a, b, c; scan(a);\n"
+                + "if a > 0 then b = 1; c = 1; else c = 2; end print(b); print(c); print(a); exit");
+        List<String> before = Programs.lines(code);
+        UninitializedVariables pass = new UninitializedVariables();
+        pass.run(code);
+        assertEquals(Collections.singletonList("b (111)"), pass.variables());
+        assertEquals(before, Programs.lines(code));
+    }
+
+    // Dentro do laco, n e lido depois de receber valor em todo caminho que chega la
+    @Test
+    void ignoresVariableAssignedOnEveryPath() {
+        Code code = Programs.compile("start int a, n; scan(a);\n"
+                + "if a > 0 then n = a; else scan(n); end\n"
+                + "do n = n - 1; print(n); while (n > 0) end exit");
+        UninitializedVariables pass = new UninitializedVariables();
+        pass.run(code);
+        assertEquals(Collections.emptyList(), pass.variables());
+    }
+}
@@ -0,0 +1,74 @@
+package generator.opt;
+
+import generator.Code;
+import generator.Programs;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ValueNumberingTest {
+
+    // b * a repete a * b: passa a ler t e a copia para t2 sai. Depois de "a = 5" e de "scan(b)" o mesmo
+    // texto a * b e outro valor e e calculado de novo.
+    @Test
+    void reusesRepeatedExpressionUntilAnOperandChanges() {
+        Code code = Programs.compile("start int a, b, x, y, z; scan(a); scan(b);\n"
+                + "x = a * b + 1; y = b * a + 2;\n"
+                + "a = 5; z = a * b;\n"
+                + "scan(b); x = a * b;\n"
+                + "print(x + y + z); exit");
+        new ValueNumbering().run(code);
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 INTEGER b",
+                "102 INTEGER x",
+                "103 INTEGER y",
+                "104 INTEGER z",
+                "105 scan a",
+                "106 scan b",
+                "107 t = a * b",
+                "108 t1 = t + 1",
+                "109 x = t1",
+                "110 t3 = t + 2",
+                "111 y = t3",
+                "112 a = 5",
+                "113 t4 = a * b",
+                "114 z = t4",
+                "115 scan b",
+                "116 t5 = a * b",
+                "117 x = t5",
+                "118 t6 = y + z",
+                "119 t7 = x + t6",
+                "120 out t7"), Programs.lines(code));
+    }
+
+    // Ler a variavel de novo depois de copiar o valor para ela tambem reaproveita; concatenacao de
+    // strings nao comuta
+    @Test
+    void followsCopiesAndKeepsStringOrder() {
+        Code code = Programs.compile("start int a, b, c; string s, r; scan(a); scan(s);\n"
+                + "b = a; c = b + 1; print(a + 1);\n"
+                + "r = s + {x}; print(r); r = {x} + s; print(r); exit");
+        new ValueNumbering().run(code);
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 INTEGER b",
+                "102 INTEGER c",
+                "103 STRING s",
+                "104 STRING r",
+                "105 scan a",
+                "106 scan s",
+                "107 b = a",
+                "108 t = b + 1",
+                "109 c = t",
+                "110 out t",
+                "111 t2 = s + \"x\"",
+                "112 r = t2",
+                "113 out r",
+                "114 t3 = \"x\" + s",
+                "115 r = t3",
+                "116 out r"), Programs.lines(code));
+    }
+}
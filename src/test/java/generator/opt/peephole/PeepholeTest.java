@@ -0,0 +1,187 @@
+package generator.opt.peephole;
+
+import generator.Code;
+import generator.Programs;
+import generator.Type;
+import generator.addresses.ConstAddress;
+import generator.addresses.NameAddress;
+import generator.output.BinaryTac;
+import generator.output.TacImage;
+import lexical.SymbolPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PeepholeTest {
+
+    // a * 8 vira shift, 2 * a vira soma, y / 4.0 vira multiplicacao pelo inverso; a * 6 e y / 3.0 ficam
+    @Test
+    void strengthReduction() {
+        StrengthReduction rule = new StrengthReduction();
+        Code code = run(rule, "start int a, b, c, d; float x, y, z; scan(a); scan(y);\n"
+                + "b = a * 8; c = 2 * a; d = a * 6; x = y / 4.0; z = y / 3.0; exit");
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 INTEGER b",
+                "102 INTEGER c",
+                "103 INTEGER d",
+                "104 FLOAT x",
+                "105 FLOAT y",
+                "106 FLOAT z",
+                "107 scan a",
+                "108 scan y",
+                "109 t = a << 3",
+                "110 b = t",
+                "111 t1 = a + a",
+                "112 c = t1",
+                "113 t2 = a * 6",
+                "114 d = t2",
+                "115 t3 = y * 0.25",
+                "116 x = t3",
+                "117 t4 = y / 3.0",
+                "118 z = t4"), Programs.lines(code));
+        assertEquals(3, rule.hits());
+    }
+
+    // O SHL gerado pelo peephole e dobrado como os outros operadores e sobrevive ao formato binario
+    @Test
+    void shiftIsFoldedAndKeptInBinary(@TempDir Path dir) throws Exception {
+        Code code = Programs.compile("start int a, b; scan(a); b = a * 16; print(b); exit");
+        new Peephole(Collections.singletonList(new StrengthReduction())).run(code);
+        assertEquals("103 t = a << 4", Programs.lines(code).get(3));
+        String file = dir.resolve("shl.tac").toString();
+        BinaryTac.write(code, file);
+        assertEquals(code.toString(), TacImage.open(file).toString());
+
+        Code folded = Programs.optimize("start int a, b; a = 3; b = a * 8; print(b); exit", "peephole,fold");
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 INTEGER b",
+                "102 a = 3",
+                "103 b = 24",
+                "104 out 24"), Programs.lines(folded));
+    }
+
+    // x + 0, x * 1, x * 0, x - x, x / 1 e - - x; x + 0.0 com float fica
+    @Test
+    void algebraicIdentities() {
+        AlgebraicIdentities rule = new AlgebraicIdentities();
+        Code code = run(rule, "start int a, b, c, d, e, f, g; float x, y; scan(a); scan(x);\n"
+                + "b = a + 0; c = a * 1; d = a * 0; e = a - a; f = a / 1; g = -(-a); y = x + 0.0; exit");
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 INTEGER b",
+                "102 INTEGER c",
+                "103 INTEGER d",
+                "104 INTEGER e",
+                "105 INTEGER f",
+                "106 INTEGER g",
+                "107 FLOAT x",
+                "108 FLOAT y",
+                "109 scan a",
+                "110 scan x",
+                "111 t = a",
+                "112 b = t",
+                "113 t1 = a",
+                "114 c = t1",
+                "115 t2 = 0",
+                "116 d = t2",
+                "117 t3 = 0",
+                "118 e = t3",
+                "119 t4 = a",
+                "120 f = t4",
+                "121 t6 = a",
+                "122 g = t6",
+                "123 t7 = x + 0.0",
+                "124 y = t7"), Programs.lines(code));
+        assertEquals(6, rule.hits());
+    }
+
+    // "t = a + c; b = t" vira "b = a + c", e o mesmo com o operador unario
+    @Test
+    void copyCoalescing() {
+        CopyCoalescing rule = new CopyCoalescing();
+        Code code = run(rule, "start int a, b, c, d; scan(a); scan(c); b = a + c; d = -b; exit");
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 INTEGER b",
+                "102 INTEGER c",
+                "103 INTEGER d",
+                "104 scan a",
+                "105 scan c",
+                "106 b = a + c",
+                "107 d = -b"), Programs.lines(code));
+        assertEquals(2, rule.hits());
+    }
+
+    // "t = a > b; if t goto L1; goto L2; L1:" vira "t = a <= b; if t goto L2"
+    @Test
+    void redundantJumpsInvertsCondition() {
+        RedundantJumps rule = new RedundantJumps();
+        Code code = run(rule, "start int a, b; scan(a); scan(b); if a > b then print(a); end print(b); exit");
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 INTEGER b",
+                "102 scan a",
+                "103 scan b",
+                "104 t = a <= b",
+                "105 if t goto 107",
+                "106 out a",
+                "107 out b"), Programs.lines(code));
+        assertEquals(1, rule.hits());
+    }
+
+    // 102 goto 104 salta para outro goto e passa a ir direto a 106; 101 salta para a seguinte e sai
+    @Test
+    void redundantJumpsThreadsGotoAndDropsJumpToNext() {
+        Code code = new Code();
+        NameAddress a = new NameAddress(new SymbolPool().intern("a"), Type.INTEGER);
+        code.symbols().put(a);
+        code.emitDecl(a);
+        code.backpatch(code.emitIf(a), 102);
+        int first = code.emitGoto();
+        code.emitOut(new ConstAddress(1));
+        int second = code.emitGoto();
+        code.emitOut(new ConstAddress(2));
+        code.backpatch(first, 104);
+        code.backpatch(second, 106);
+        code.emitOut(a);
+
+        RedundantJumps rule = new RedundantJumps();
+        new Peephole(Collections.singletonList(rule)).run(code);
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 goto 105",
+                "102 out 1",
+                "103 goto 105",
+                "104 out 2",
+                "105 out a"), Programs.lines(code));
+        assertEquals(2, rule.hits());
+    }
+
+    // a * 4 vira shift, t + 0 vira copia e as duas copias se juntam ao shift; o if invertido leva o goto.
+    // O relatorio soma as instrucoes eliminadas e mostra o contador de cada regra.
+    @Test
+    void reportCountsEachRule() {
+        Peephole peephole = new Peephole();
+        peephole.run(Programs.compile("start int a, b; scan(a); b = a * 4 + 0; if a > b then print(a); end exit"));
+        int[] hits = peephole.rules().stream().mapToInt(PeepholeRule::hits).toArray();
+        assertArrayEquals(new int[]{1, 1, 2, 1}, hits);
+        assertTrue(peephole.report().startsWith("Peephole: 3 "));
+        for (PeepholeRule rule : peephole.rules())
+            assertTrue(peephole.report().contains(", " + rule.name() + " " + rule.hits()));
+    }
+
+    private static Code run(PeepholeRule rule, String source) {
+        Code code = Programs.compile(source);
+        new Peephole(Collections.singletonList(rule)).run(code);
+        return code;
+    }
+}
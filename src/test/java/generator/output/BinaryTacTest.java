@@ -0,0 +1,47 @@
+package generator.output;
+
+import generator.Code;
+import generator.Programs;
+import generator.opt.TempAllocation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinaryTacTest {
+
+    @Test
+    void roundTripKeepsListing(@TempDir Path dir) throws Exception {
+        Code code = Programs.compile("start int a, b; float x, y; string s;\n"
+                + "scan(a); x = 0.1; y = x * 2.5 + a;\n"
+                + "s = {Ola, } + {mundo};\n"
+                + "do\n"
+                + "  b = a * a - 1;\n"
+                + "  if (b > 10) && (y < 3.75) then print(s); else print({fim}); end\n"
+                + "  a = a - 1;\n"
+                + "while (a > 0) end\n"
+                + "print(y / 2.0);\n"
+                + "exit");
+        new TempAllocation().run(code);
+        String file = dir.resolve("programa.tac").toString();
+        BinaryTac.write(code, file);
+
+        TacImage image = TacImage.open(file);
+        assertEquals(code.toString(), image.toString());
+        assertEquals(code.startAddr(), image.startAddr());
+        for (int i = 0; i < code.symbols().getTable().size(); i++) {
+            assertEquals(code.symbols().getTable().get(i).width(), image.widthOf(i));
+            assertEquals(code.symbols().offsetOf(i), image.offsetOf(i));
+        }
+    }
+
+    @Test
+    void unknownFormatIsRejected() {
+        assertEquals(Format.JSON, Format.parse("json"));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Format.parse("xml"));
+        assertEquals("Formato desconhecido: xml", e.getMessage());
+    }
+}
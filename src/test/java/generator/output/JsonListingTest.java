@@ -0,0 +1,81 @@
+package generator.output;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import generator.Code;
+import generator.Programs;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonListingTest {
+
+    @Test
+    void symbolsAndCodeParseBack() throws Exception {
+        Code code = Programs.compile("start int a; float x; string s;\n"
+                + "scan(a); if a > 0 then x = 1.5; else s = {neg}; end exit");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonListing.write(code, out);
+        JsonNode root = new ObjectMapper().readTree(out.toByteArray());
+
+        assertEquals(100, root.get("start").asInt());
+        JsonNode symbols = root.get("symbols");
+        assertEquals(3, symbols.size());
+        assertSymbol(symbols.get(0), "a", "INTEGER", 4, 0);
+        assertSymbol(symbols.get(1), "x", "FLOAT", 8, 4);
+        assertSymbol(symbols.get(2), "s", "STRING", 40, 12);
+
+        // 100-102 declaracoes, 103 scan a, 104 t = a > 0, 105 if t goto 107, 106 goto 109,
+        // 107 x = 1.5, 108 goto 110, 109 s = "neg"
+        JsonNode listing = root.get("code");
+        assertEquals(code.size(), listing.size());
+        for (int i = 0; i < listing.size(); i++) {
+            JsonNode quad = listing.get(i);
+            assertEquals(code.address(i), quad.get("address").asInt());
+            assertEquals(code.op(i).name(), quad.get("op").asText());
+            assertEquals(code.op(i).isJump(), quad.has("target"));
+        }
+        JsonNode relop = listing.get(4);
+        assertEquals("GT", relop.get("op").asText());
+        assertEquals("t", relop.get("result").asText());
+        assertEquals("a", relop.get("arg1").asText());
+        assertEquals("0", relop.get("arg2").asText());
+
+        JsonNode branch = listing.get(5);
+        assertEquals("IF", branch.get("op").asText());
+        assertEquals("t", branch.get("arg1").asText());
+        assertFalse(branch.has("result"));
+        assertFalse(branch.has("arg2"));
+        assertEquals(107, branch.get("target").asInt());
+        assertEquals(109, listing.get(6).get("target").asInt());
+        assertEquals(110, listing.get(8).get("target").asInt());
+
+        JsonNode copy = listing.get(7);
+        assertEquals("COPY", copy.get("op").asText());
+        assertEquals("x", copy.get("result").asText());
+        assertEquals("1.5", copy.get("arg1").asText());
+    }
+
+    // Saltos ainda sem destino saem com "target": null
+    @Test
+    void pendingJumpHasNullTarget() throws Exception {
+        Code code = new Code();
+        code.emitGoto();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonListing.write(code, out);
+        JsonNode jump = new ObjectMapper().readTree(out.toByteArray()).get("code").get(0);
+        assertEquals("GOTO", jump.get("op").asText());
+        assertTrue(jump.get("target").isNull());
+    }
+
+    private static void assertSymbol(JsonNode symbol, String name, String type, int width, int offset) {
+        assertEquals(name, symbol.get("name").asText());
+        assertEquals(type, symbol.get("type").asText());
+        assertEquals(width, symbol.get("width").asInt());
+        assertEquals(offset, symbol.get("offset").asInt());
+    }
+}
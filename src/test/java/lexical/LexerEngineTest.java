@@ -0,0 +1,179 @@
+package lexical;
+
+import lexical.source.BufferedCharSource;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// Os dois motores do automato precisam produzir a mesma sequencia de (tipo, texto, linha)
+class LexerEngineTest {
+
+    private static final String[] PIECES = {
+            "start", "exit", "if", "then", "else", "end", "do", "while", "scan", "print", "int", "float",
+            "string", "a", "_x1", "valor", "B2c", "0", "42", "3.14", "7.", "1.5e", "{texto}", "{}",
+            "{com\nquebra}", "/* bloco */", "/* varias\nlinhas **/", "// linha\n", "=", "==", ">", ">=",
+            "<", "<=", "<>", "+", "-", "*", "/", "(", ")", ";", ",", ".", "!", "||", "&&", "|", "&",
+            "#", "@", "$", " ", " ", "\t", "\n", "\r\n"
+    };
+
+    @Test
+    void samplePrograms() throws IOException {
+        for (int i = 1; i <= 6; i++) {
+            byte[] source = Files.readAllBytes(Paths.get("teste" + i + ".txt"));
+            assertSameTokens("teste" + i + ".txt", source);
+        }
+    }
+
+    @Test
+    void generatedCorpus() {
+        Random random = new Random(4);
+        for (int n = 0; n < 200; n++)
+            assertSameTokens("corpus " + n, bytes(corpus(random)));
+    }
+
+    @Test
+    void unterminatedCommentAndString() {
+        for (String text : new String[]{"a = 1; /* sem fim", "/*", "/* x\n*", "print({sem fim", "{", "a {\n"}) {
+            List<String> tokens = assertSameTokens(text, bytes(text));
+            assertEquals(TokenType.UNEXPECTED_EOF.name(), tokens.get(tokens.size() - 1).split(" ")[0], text);
+        }
+    }
+
+    // Fila menor que o numero de tokens: o produtor precisa esperar o consumidor varias vezes
+    @Test
+    void pipelinedMatchesSynchronous() throws IOException {
+        for (int i = 1; i <= 6; i++) {
+            byte[] source = Files.readAllBytes(Paths.get("teste" + i + ".txt"));
+            assertEquals(tokens(source, LexerEngine.SWITCH), pipelined(source, 4), "teste" + i + ".txt");
+        }
+        Random random = new Random(5);
+        for (int n = 0; n < 50; n++) {
+            byte[] source = bytes(corpus(random));
+            assertEquals(tokens(source, LexerEngine.SWITCH), pipelined(source, 2 + random.nextInt(16)), "corpus " + n);
+        }
+    }
+
+    // O sintatico para no meio: close() libera o produtor parado na fila cheia
+    @Test
+    void pipelineStopsWhenParserCloses() throws Exception {
+        LexicalAnalysis lexer = lexer(bytes("a = 1;\n".repeat(1000)), LexerEngine.SWITCH);
+        Set<Thread> running = Thread.getAllStackTraces().keySet();
+        lexer.startPipeline(4);
+        Thread producer = producerThread(running);
+        Lexeme lex = new Lexeme();
+        for (int k = 0; k < 2; k++)
+            lexer.nextToken(lex);
+        assertEquals(TokenType.ASSIGN, lex.type);
+        lexer.close();
+        producer.join(5_000);
+        assertFalse(producer.isAlive());
+    }
+
+    // Com muitos trechos pequenos o corte desejado cai dentro de comentarios e literais de varias linhas;
+    // o ChunkSplitter precisa adiar o corte para a proxima quebra de linha segura
+    @Test
+    void parallelMatchesSequential() throws Exception {
+        String[] multiline = {"// linha { /* \n", "/* a\n*\n b */", "/* *\n/ */", "/* **\n*/", "{li\nnha}",
+                "{ // \n /* }", "\n", "\n\n"};
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Random random = new Random(6);
+            for (int n = 0; n < 100; n++) {
+                StringBuilder text = new StringBuilder();
+                int pieces = 1 + random.nextInt(400);
+                for (int k = 0; k < pieces; k++) {
+                    String[] from = random.nextInt(3) == 0 ? multiline : PIECES;
+                    text.append(from[random.nextInt(from.length)]);
+                }
+                byte[] source = bytes(text.toString());
+                for (int chunks = 2; chunks <= 40; chunks += 1 + random.nextInt(6))
+                    assertEquals(tokens(source, LexerEngine.SWITCH), parallel(source, pool, chunks),
+                            "corpus " + n + ", " + chunks + " trechos");
+            }
+            for (int i = 1; i <= 6; i++) {
+                byte[] source = Files.readAllBytes(Paths.get("teste" + i + ".txt"));
+                assertEquals(tokens(source, LexerEngine.SWITCH), parallel(source, pool, source.length / 8),
+                        "teste" + i + ".txt");
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static Thread producerThread(Set<Thread> running) {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if ("lexer".equals(thread.getName()) && !running.contains(thread))
+                return thread;
+        }
+        throw new AssertionError("Thread do lexico nao encontrada");
+    }
+
+    private static String corpus(Random random) {
+        StringBuilder text = new StringBuilder();
+        int pieces = 1 + random.nextInt(300);
+        for (int k = 0; k < pieces; k++) {
+            text.append(PIECES[random.nextInt(PIECES.length)]);
+            if (random.nextInt(3) == 0)
+                text.append(' ');
+        }
+        return text.toString();
+    }
+
+    // Devolve a sequencia de um dos motores depois de comparar as duas
+    private static List<String> assertSameTokens(String name, byte[] source) {
+        List<String> expected = tokens(source, LexerEngine.SWITCH);
+        List<String> actual = tokens(source, LexerEngine.TABLE);
+        assertEquals(expected, actual, name);
+        return expected;
+    }
+
+    private static List<String> pipelined(byte[] source, int capacity) {
+        LexicalAnalysis lexer = lexer(source, LexerEngine.SWITCH);
+        lexer.startPipeline(capacity);
+        return tokens(lexer);
+    }
+
+    private static List<String> parallel(byte[] source, ForkJoinPool pool, int chunks) throws LexicalException {
+        LexicalAnalysis lexer = lexer(source, LexerEngine.SWITCH);
+        lexer.tokenizeParallel(pool, chunks);
+        return tokens(lexer);
+    }
+
+    private static LexicalAnalysis lexer(byte[] source, LexerEngine engine) {
+        return new LexicalAnalysis(new BufferedCharSource(source), new SwitchTokenTable(), engine);
+    }
+
+    private static List<String> tokens(byte[] source, LexerEngine engine) {
+        return tokens(lexer(source, engine));
+    }
+
+    // Ate END_OF_FILE ou UNEXPECTED_EOF, que encerram a leitura
+    private static List<String> tokens(LexicalAnalysis lexer) {
+        List<String> tokens = new ArrayList<>();
+        Lexeme lex = new Lexeme();
+        do {
+            try {
+                lexer.nextToken(lex);
+            } catch (LexicalException e) {
+                throw new AssertionError(e);
+            }
+            tokens.add(lex.type + " " + lex.token() + " " + lexer.getLine());
+        } while (lex.type != TokenType.END_OF_FILE && lex.type != TokenType.UNEXPECTED_EOF);
+        return tokens;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,118 @@
+package syntatic;
+
+import generator.Code;
+import generator.Programs;
+import generator.opt.Optimizer;
+import generator.output.Format;
+import lexical.LexicalAnalysis;
+import lexical.source.BufferedCharSource;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SyntaticAnalysisTest {
+
+    // No if: a > 0 falso pula b > 0 e vai direto testar c == 0; os dois verdadeiros pulam c == 0.
+    // O ! troca as listas, entao c == 0 verdadeiro vai para o else. No while, a > b verdadeiro volta
+    // ao inicio do laco sem avaliar o lado direito do ||.
+    @Test
+    void shortCircuitInsideIfAndDoWhile() {
+        Code code = Programs.compile("start int a, b, c; scan(a); scan(b); scan(c);\n"
+                + "do\n"
+                + "  if ((a > 0) && (b > 0)) || !(c == 0) then print(1); else print(2); end\n"
+                + "  a = a - 1;\n"
+                + "while (a > b) || ((c > 0) && (b > a)) end exit", true);
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 INTEGER b",
+                "102 INTEGER c",
+                "103 scan a",
+                "104 scan b",
+                "105 scan c",
+                "106 t = a > 0",
+                "107 if t goto 109",
+                "108 goto 112",
+                "109 t1 = b > 0",
+                "110 if t1 goto 115",
+                "111 goto 112",
+                "112 t2 = c == 0",
+                "113 if t2 goto 117",
+                "114 goto 115",
+                "115 out 1",
+                "116 goto 118",
+                "117 out 2",
+                "118 t3 = a - 1",
+                "119 a = t3",
+                "120 t4 = a > b",
+                "121 if t4 goto 106",
+                "122 goto 123",
+                "123 t5 = c > 0",
+                "124 if t5 goto 126",
+                "125 goto 129",
+                "126 t6 = b > a",
+                "127 if t6 goto 106",
+                "128 goto 129"), Programs.lines(code));
+    }
+
+    // Usado como valor dentro da condicao, o || em codigo de desvio vira 0/1 num temporario
+    @Test
+    void shortCircuitMaterializedAsValue() {
+        Code code = Programs.compile("start int a, b; scan(a); scan(b);\n"
+                + "if ((a > 0) || (b > 0)) == 1 then print(1); end exit", true);
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 INTEGER b",
+                "102 scan a",
+                "103 scan b",
+                "104 t = a > 0",
+                "105 if t goto 110",
+                "106 goto 107",
+                "107 t1 = b > 0",
+                "108 if t1 goto 110",
+                "109 goto 112",
+                "110 t2 = 1",
+                "111 goto 113",
+                "112 t2 = 0",
+                "113 t3 = t2 == 1",
+                "114 if t3 goto 116",
+                "115 goto 117",
+                "116 out 1"), Programs.lines(code));
+    }
+
+    // Sem --short-circuit, && e || continuam calculados como valores
+    @Test
+    void logicalOperatorsWithoutShortCircuit() {
+        Code code = Programs.compile("start int a, b; scan(a); scan(b);\n"
+                + "if (a > 0) && (b > 0) then print(1); end exit");
+        assertEquals(Arrays.asList(
+                "100 INTEGER a",
+                "101 INTEGER b",
+                "102 scan a",
+                "103 scan b",
+                "104 t = a > 0",
+                "105 t1 = b > 0",
+                "106 t2 = t && t1",
+                "107 if t2 goto 109",
+                "108 goto 110",
+                "109 out 1"), Programs.lines(code));
+    }
+
+    // O streaming descarta codigo que o JSON e as otimizacoes precisam inteiro: as duas combinacoes
+    // sao recusadas logo na configuracao
+    @Test
+    void streamingRejectsJsonAndOptimizer() throws Exception {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SyntaticAnalysis(lexer("start int a; exit"), new StringWriter(), Format.JSON));
+        SyntaticAnalysis parser = new SyntaticAnalysis(lexer("start int a; exit"), new StringWriter());
+        assertThrows(IllegalStateException.class, () -> parser.setOptimizer(Optimizer.parse("fold", null)));
+    }
+
+    private static LexicalAnalysis lexer(String source) {
+        return new LexicalAnalysis(new BufferedCharSource(source.getBytes(StandardCharsets.ISO_8859_1)));
+    }
+}